@@ -0,0 +1,54 @@
+package demo.kafka.event;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+/**
+ * Measures the cost of serializing an outbound event to the bytes sent to Kafka.
+ *
+ * Run with -prof gc to also report the allocation per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventSerializationBenchmark {
+
+    private static final String TOPIC = "demo-outbound-topic";
+
+    private JsonSerializer<Object> jsonSerializer;
+
+    private DemoOutboundEventSerializer eventSerializer;
+
+    private DemoOutboundEvent event;
+
+    @Setup
+    public void setUp() {
+        jsonSerializer = new JsonSerializer<>();
+        eventSerializer = new DemoOutboundEventSerializer();
+        event = DemoOutboundEvent.builder().name("Abcdefgh").jobId("8f14e45f-ceea-467e-a5b2-3f1c1c7a0e1b").sequence(123456L).build();
+    }
+
+    @Benchmark
+    public byte[] jsonSerializer() {
+        return jsonSerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public byte[] eventSerializer() {
+        return eventSerializer.serialize(TOPIC, event);
+    }
+}
@@ -0,0 +1,111 @@
+package demo.kafka.producer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import demo.kafka.event.DemoOutboundEvent;
+import demo.kafka.properties.KafkaDemoProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+/**
+ * Compares the throughput of sending a run of events through the KafkaProducer, against a mock broker:
+ *
+ * sync: waits for each send to be acknowledged before the next.
+ * pipelined: keeps up to the send window of sends in flight.
+ * batched: hands the events to the pipeline in batches, flushing at each batch boundary.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class KafkaProducerBenchmark {
+
+    private static final int EVENTS_PER_INVOCATION = 1000;
+
+    /**
+     * The simulated broker round trip, with 0 acknowledging each send as soon as it is made.
+     */
+    @Param({"0", "100"})
+    private long ackDelayMicros;
+
+    @Param({"100"})
+    private int sendWindow;
+
+    @Param({"500"})
+    private int eventBatchSize;
+
+    private MockBroker mockBroker;
+
+    private KafkaProducer kafkaProducer;
+
+    private List<DemoOutboundEvent> events;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final KafkaDemoProperties properties = new KafkaDemoProperties();
+        properties.setOutboundTopic("demo-outbound-topic");
+        properties.getProducer().setSendWindow(sendWindow);
+        mockBroker = new MockBroker(properties, new JsonSerializer<>(), ackDelayMicros);
+        kafkaProducer = mockBroker.getKafkaProducer();
+        events = new ArrayList<>(EVENTS_PER_INVOCATION);
+        for(int i = 0; i < EVENTS_PER_INVOCATION; i++) {
+            events.add(DemoOutboundEvent.builder().name("Event" + i).build());
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void clear() {
+        mockBroker.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        mockBroker.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_INVOCATION)
+    public void sync() throws Exception {
+        for(DemoOutboundEvent event : events) {
+            kafkaProducer.sendMessage(event);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_INVOCATION)
+    public void pipelined() throws Exception {
+        final SendPipeline pipeline = kafkaProducer.pipeline(SendListener.NONE);
+        for(DemoOutboundEvent event : events) {
+            pipeline.send(event);
+        }
+        pipeline.awaitCompletion();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_INVOCATION)
+    public void batched() throws Exception {
+        final SendPipeline pipeline = kafkaProducer.pipeline(SendListener.NONE);
+        for(int i = 0; i < events.size(); i += eventBatchSize) {
+            pipeline.sendBatch(events.subList(i, Math.min(i + eventBatchSize, events.size())));
+            pipeline.flush();
+        }
+        pipeline.awaitCompletion();
+    }
+}
@@ -0,0 +1,78 @@
+package demo.kafka.producer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import demo.kafka.properties.KafkaDemoProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+
+/**
+ * Stands in for the broker in the benchmarks, backing a KafkaProducer with a MockProducer.
+ *
+ * With an ack delay of 0 each send is acknowledged as soon as it is made.  Otherwise the outstanding sends are all
+ * acknowledged after each ack delay by a background thread, approximating a round trip to the broker.
+ */
+public class MockBroker implements AutoCloseable {
+
+    private final MockProducer<String, Object> mockProducer;
+
+    private final KafkaProducer kafkaProducer;
+
+    private final Thread acknowledger;
+
+    private volatile boolean running = true;
+
+    public MockBroker(KafkaDemoProperties properties, Serializer<Object> valueSerializer, long ackDelayMicros) {
+        mockProducer = new MockProducer<>(ackDelayMicros == 0, new StringSerializer(), valueSerializer) {
+            @Override
+            public void close(Duration timeout) {
+                // The template closes the producer after each send, so it is left open for the next.
+            }
+        };
+        final KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(new MockProducerFactory<>(() -> mockProducer));
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        kafkaProducer = new KafkaProducer(properties, new ProducerPool(List.of(kafkaTemplate), properties.getProducer().getPoolStrategy(), meterRegistry), new ProducerMetrics(meterRegistry), new CircuitBreaker(properties, meterRegistry), Optional.empty());
+        if(ackDelayMicros > 0) {
+            acknowledger = new Thread(() -> {
+                while(running) {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(ackDelayMicros));
+                    while(mockProducer.completeNext()) {
+                        // Acknowledge all the sends outstanding.
+                    }
+                }
+            }, "mock-broker");
+            acknowledger.setDaemon(true);
+            acknowledger.start();
+        } else {
+            acknowledger = null;
+        }
+    }
+
+    public KafkaProducer getKafkaProducer() {
+        return kafkaProducer;
+    }
+
+    /**
+     * Discards the history of sends, which the MockProducer would otherwise retain for the length of the benchmark.
+     * Must only be called once all sends have completed.
+     */
+    public void clear() {
+        mockProducer.clear();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        if(acknowledger != null) {
+            acknowledger.join();
+        }
+    }
+}
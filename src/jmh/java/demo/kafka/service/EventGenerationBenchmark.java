@@ -0,0 +1,93 @@
+package demo.kafka.service;
+
+import java.util.concurrent.TimeUnit;
+
+import demo.kafka.event.DemoOutboundEvent;
+import demo.kafka.properties.KafkaDemoProperties;
+import demo.kafka.rest.api.PayloadDistribution;
+import demo.kafka.rest.api.PayloadSize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
+
+/**
+ * Measures the cost of building each outbound event in DemoService, including the generation of its random name.
+ *
+ * Run with -prof gc to also report the allocation per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventGenerationBenchmark {
+
+    private DemoService demoService;
+
+    private long sequence;
+
+    /**
+     * The payload of each event in the payload benchmarks, at each size.
+     */
+    @State(Scope.Benchmark)
+    public static class Payload {
+
+        @Param({"1024", "102400", "1032192"})
+        private int payloadBytes;
+
+        private PayloadGenerator payloadGenerator;
+
+        @Setup
+        public void setUp() {
+            payloadGenerator = PayloadGenerator.of(PayloadSize.builder().distribution(PayloadDistribution.FIXED).bytes(payloadBytes).build());
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        demoService = new DemoService(new KafkaDemoProperties(), null);
+    }
+
+    @Benchmark
+    public DemoOutboundEvent buildEvent() {
+        return demoService.buildEvent("benchmark", sequence++);
+    }
+
+    @Benchmark
+    public DemoOutboundEvent buildEventWithPayload(Payload payload) {
+        return demoService.buildEvent("benchmark", sequence++, payload.payloadGenerator);
+    }
+
+    /**
+     * Generating each payload a random character at a time, as a baseline for the payload pool.
+     */
+    @Benchmark
+    public String randomAlphanumericPayload(Payload payload) {
+        return randomAlphanumeric(payload.payloadBytes);
+    }
+
+    @Benchmark
+    public String randomName() {
+        return NameGenerator.randomName();
+    }
+
+    /**
+     * The name generation previously used, as a baseline for comparison.
+     */
+    @Benchmark
+    public String randomAlphabeticName() {
+        return randomAlphabetic(1).toUpperCase() + randomAlphabetic(7).toLowerCase();
+    }
+}
@@ -0,0 +1,132 @@
+package demo.kafka;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+
+/**
+ * Configures the executor that runs the @Async trigger jobs.
+ *
+ * When virtual threads are enabled each job runs on its own virtual thread, so a job waiting on broker acks parks
+ * cheaply rather than holding a platform thread.  Virtual threads require Java 21, with the settings validated on
+ * startup, so that an enabled executor fails the startup on an earlier version.  When virtual threads are not enabled
+ * the Spring Boot application task executor is used.
+ *
+ * Either way at most the concurrency limit of jobs are running or queued at once.  A further job is rejected rather
+ * than waiting for a running job to complete, so the request thread returns a 503 rather than hanging.
+ */
+@Slf4j
+@Configuration
+public class AsyncConfiguration implements AsyncConfigurer, InitializingBean, DisposableBean {
+
+    private final boolean virtualThreads;
+
+    private final int concurrencyLimit;
+
+    private final ObjectProvider<Executor> applicationTaskExecutor;
+
+    private SimpleAsyncTaskExecutor executor;
+
+    private ConcurrencyLimitedExecutor limitedExecutor;
+
+    public AsyncConfiguration(@Value("${async.virtualThreads:false}") boolean virtualThreads,
+                              @Value("${async.concurrencyLimit:1000}") int concurrencyLimit,
+                              @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) ObjectProvider<Executor> applicationTaskExecutor) {
+        this.virtualThreads = virtualThreads;
+        this.concurrencyLimit = concurrencyLimit;
+        this.applicationTaskExecutor = applicationTaskExecutor;
+    }
+
+    /**
+     * Validates the settings, creating the virtual thread executor if enabled, which throws if virtual threads are not
+     * supported by the Java version.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if(concurrencyLimit < 1) {
+            throw new IllegalStateException("async.concurrencyLimit must be at least 1: " + concurrencyLimit);
+        }
+        if(!virtualThreads) {
+            log.info("Async config: application task executor - concurrency limit: {}", concurrencyLimit);
+            return;
+        }
+        if(Runtime.version().feature() < 21) {
+            throw new IllegalStateException("async.virtualThreads requires Java 21, running on Java " + Runtime.version().feature());
+        }
+        log.info("Async config: virtual threads - concurrency limit: {}", concurrencyLimit);
+        executor = new SimpleAsyncTaskExecutor("trigger-");
+        executor.setVirtualThreads(true);
+    }
+
+    /**
+     * The virtual thread executor if enabled, otherwise the Spring Boot application task executor, limited to the
+     * concurrency limit of jobs at once.
+     */
+    @Override
+    public synchronized Executor getAsyncExecutor() {
+        if(limitedExecutor == null) {
+            limitedExecutor = new ConcurrencyLimitedExecutor(executor != null ? executor : applicationTaskExecutor.getObject(), concurrencyLimit);
+        }
+        return limitedExecutor;
+    }
+
+    @Override
+    public void destroy() {
+        if(executor != null) {
+            executor.close();
+        }
+    }
+
+    /**
+     * Runs each task on the delegate executor while fewer than the limit of tasks are running or queued, otherwise
+     * rejecting it without blocking the submitting thread.
+     */
+    static class ConcurrencyLimitedExecutor implements Executor {
+
+        private final Executor delegate;
+
+        private final int limit;
+
+        private final Semaphore permits;
+
+        ConcurrencyLimitedExecutor(Executor delegate, int limit) {
+            this.delegate = delegate;
+            this.limit = limit;
+            this.permits = new Semaphore(limit);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if(!permits.tryAcquire()) {
+                throw new TaskRejectedException("Async job concurrency limit of " + limit + " reached");
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch(RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        Executor getDelegate() {
+            return delegate;
+        }
+    }
+}
@@ -1,17 +1,28 @@
 package demo.kafka;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import demo.kafka.event.DemoOutboundEventSerializer;
+import demo.kafka.producer.ProducerPool;
+import demo.kafka.properties.KafkaDemoProperties;
+import demo.kafka.spill.SpillLog;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
@@ -22,24 +33,109 @@ public class KafkaDemoConfiguration {
 
     @Bean
     public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
-        return new KafkaTemplate<>(producerFactory);
+        return newKafkaTemplate(producerFactory);
+    }
+
+    /**
+     * The pool of producers the sends are spread across.  The first producer is the kafkaTemplate bean, with each
+     * further producer using a copy of its producer factory config with its own client.id, and in the TRANSACTIONAL
+     * mode its own transactional.id prefix.
+     */
+    @Bean
+    public ProducerPool producerPool(KafkaTemplate<String, Object> kafkaTemplate,
+                                     ProducerFactory<String, Object> producerFactory,
+                                     KafkaDemoProperties properties,
+                                     MeterRegistry meterRegistry) {
+        final KafkaDemoProperties.Producer producer = properties.getProducer();
+        log.info("Producer pool config: size: {} - strategy: {}", producer.getPoolSize(), producer.getPoolStrategy());
+        final List<KafkaTemplate<String, Object>> kafkaTemplates = new ArrayList<>();
+        kafkaTemplates.add(kafkaTemplate);
+        for(int i = 1; i < producer.getPoolSize(); i++) {
+            final ProducerFactory<String, Object> copy = producerFactory.copyWithConfigurationOverride(Map.of(ProducerConfig.CLIENT_ID_CONFIG, clientId(i)));
+            if(producer.getMode() == KafkaDemoProperties.ProducerMode.TRANSACTIONAL) {
+                ((DefaultKafkaProducerFactory<String, Object>) copy).setTransactionIdPrefix(transactionIdPrefix(producer, i));
+            }
+            kafkaTemplates.add(newKafkaTemplate(copy));
+        }
+        return new ProducerPool(kafkaTemplates, producer.getPoolStrategy(), meterRegistry);
+    }
+
+    /**
+     * The spill log that sends failing with a retriable error are written to when enabled, recovering any records left
+     * awaiting replay in its directory.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "kafka.spill", name = "enabled", havingValue = "true")
+    public SpillLog spillLog(KafkaDemoProperties properties, MeterRegistry meterRegistry) throws IOException {
+        final KafkaDemoProperties.Spill spill = properties.getSpill();
+        return new SpillLog(Path.of(spill.getDirectory()), spill.getSegmentBytes(), spill.getMaxBytes(), meterRegistry);
     }
 
     @Bean
     public ProducerFactory<String, Object> producerFactory(@Value("${kafka.bootstrap-servers}") String bootstrapServers,
-                                                           @Value("${kafka.producer.retries}") Integer retries,
-                                                           @Value("${kafka.producer.delivery.timeout.ms}") Integer deliveryTimeoutMs,
-                                                           @Value("${kafka.producer.request.timeout.ms}") Integer requestTimeoutMs,
-                                                           @Value("${kafka.producer.linger.ms}") Integer lingerMs) {
-        log.info("Producer config: retries: {} - delivery.timeout.ms: {} - request.timeout.ms: {} - linger.ms: {}", retries, deliveryTimeoutMs, requestTimeoutMs, lingerMs);
+                                                           KafkaDemoProperties properties,
+                                                           MeterRegistry meterRegistry) {
+        final KafkaDemoProperties.Producer producer = properties.getProducer();
+        log.info("Producer config: retries: {} - delivery.timeout.ms: {} - request.timeout.ms: {} - linger.ms: {} - value serializer: {}",
+                producer.getRetries(), producer.getDeliveryTimeoutMs(), producer.getRequestTimeoutMs(), producer.getLingerMs(), producer.getValueSerializer());
+        log.info("Producer tuning: compression.type: {} - batch.size: {} - buffer.memory: {} - max.in.flight.requests.per.connection: {} - acks: {} - mode: {}",
+                producer.getCompressionType(), producer.getBatchSize(), producer.getBufferMemory(), producer.getMaxInFlightRequestsPerConnection(), producer.getAcks(), producer.getMode());
         final Map<String, Object> config = new HashMap<>();
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ProducerConfig.CLIENT_ID_CONFIG, clientId(0));
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        config.put(ProducerConfig.RETRIES_CONFIG, retries);
-        config.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, deliveryTimeoutMs);
-        config.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, requestTimeoutMs);
-        config.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
-        return new DefaultKafkaProducerFactory<>(config);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, producer.getValueSerializer() == KafkaDemoProperties.ValueSerializer.EVENT ? DemoOutboundEventSerializer.class : JsonSerializer.class);
+        config.put(ProducerConfig.RETRIES_CONFIG, producer.getRetries());
+        config.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, producer.getDeliveryTimeoutMs());
+        config.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, producer.getRequestTimeoutMs());
+        config.put(ProducerConfig.LINGER_MS_CONFIG, producer.getLingerMs());
+        // The tuning settings left unset fall back to the client defaults.
+        putIfSet(config, ProducerConfig.COMPRESSION_TYPE_CONFIG, producer.getCompressionType());
+        putIfSet(config, ProducerConfig.BATCH_SIZE_CONFIG, producer.getBatchSize());
+        putIfSet(config, ProducerConfig.BUFFER_MEMORY_CONFIG, producer.getBufferMemory());
+        putIfSet(config, ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, producer.getMaxInFlightRequestsPerConnection());
+        putIfSet(config, ProducerConfig.ACKS_CONFIG, producer.getAcks());
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, producer.getMode() != KafkaDemoProperties.ProducerMode.PLAIN);
+        if(properties.getSpill().isEnabled() && producer.getMode() != KafkaDemoProperties.ProducerMode.TRANSACTIONAL) {
+            // A send blocked on a full buffer or on metadata fails with a TimeoutException after max.block.ms, so is spilled.
+            config.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, properties.getSpill().getBlockTimeoutMs());
+        }
+        final DefaultKafkaProducerFactory<String, Object> producerFactory = new DefaultKafkaProducerFactory<>(config);
+        if(producer.getMode() == KafkaDemoProperties.ProducerMode.TRANSACTIONAL) {
+            producerFactory.setTransactionIdPrefix(transactionIdPrefix(producer, 0));
+        }
+        // Binds the Kafka client's own producer metrics to the registry, published through actuator.
+        producerFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return producerFactory;
+    }
+
+    /**
+     * Sends made outside a transaction, such as through sendMessage, are allowed in the TRANSACTIONAL mode, using a
+     * non-transactional producer.
+     */
+    private static KafkaTemplate<String, Object> newKafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+        final KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        kafkaTemplate.setAllowNonTransactional(true);
+        return kafkaTemplate;
+    }
+
+    /**
+     * The transactional.id prefix of each producer in the pool, distinct so that the producers do not fence each other.
+     */
+    private static String transactionIdPrefix(KafkaDemoProperties.Producer producer, int index) {
+        return producer.getTransactionIdPrefix() + index + "-";
+    }
+
+    /**
+     * The client.id of each producer in the pool, tagging its Kafka client metrics.
+     */
+    private static String clientId(int index) {
+        return "kafka-demo-producer-" + index;
+    }
+
+    private static void putIfSet(Map<String, Object> config, String key, Object value) {
+        if(value != null) {
+            config.put(key, value);
+        }
     }
 }
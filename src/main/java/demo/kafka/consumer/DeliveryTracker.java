@@ -0,0 +1,98 @@
+package demo.kafka.consumer;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import demo.kafka.producer.SendLatencyRecorder;
+import demo.kafka.rest.api.DeliveryReport;
+
+/**
+ * Accounts for the delivery of the events of a single job by their sequence numbers.
+ *
+ * The sequence numbers consumed are held in a bitmap, so tracking a job of a million events takes around 125KB
+ * regardless of how many duplicates are consumed.  Sequence numbers outside the job's range are counted as invalid and
+ * otherwise ignored, so that a bad record on the topic neither fails the batch nor grows the bitmap beyond the job.
+ *
+ * Only the last sequence number per partition is held to detect reordering, as ordering is only guaranteed within a
+ * partition.  Reordering is only meaningful for events sent in order by a single sender, as the interleaved events of
+ * concurrent load workers, and spilled events replayed after later ones, are also counted as reordered.
+ *
+ * The end to end latency of each event, from being sent to being consumed, is recorded in an HdrHistogram.
+ */
+class DeliveryTracker {
+
+    private final String jobId;
+
+    private final long sequenceLimit;
+
+    private final BitSet consumed = new BitSet();
+
+    private final Map<Integer, Long> lastSequenceByPartition = new HashMap<>();
+
+    private final SendLatencyRecorder latency = new SendLatencyRecorder();
+
+    private long received;
+
+    private long duplicates;
+
+    private long reordered;
+
+    private long invalid;
+
+    private long highestSequence = -1;
+
+    /**
+     * Tracks the job's events, with sequence numbers from 0 up to, but not including, the sequence limit.
+     */
+    DeliveryTracker(String jobId, long sequenceLimit) {
+        this.jobId = jobId;
+        this.sequenceLimit = sequenceLimit;
+    }
+
+    /**
+     * Records the consumption of an event, with its end to end latency in milliseconds, or a negative latency if not
+     * known.
+     */
+    synchronized void record(int partition, long sequence, long latencyMs) {
+        received++;
+        if(sequence < 0 || sequence >= sequenceLimit) {
+            invalid++;
+            return;
+        }
+        if(latencyMs >= 0) {
+            latency.record(TimeUnit.MILLISECONDS.toNanos(latencyMs));
+        }
+        final int index = (int) sequence;
+        if(consumed.get(index)) {
+            duplicates++;
+        } else {
+            consumed.set(index);
+        }
+        final Long lastSequence = lastSequenceByPartition.put(partition, sequence);
+        if(lastSequence != null && sequence < lastSequence) {
+            reordered++;
+        }
+        highestSequence = Math.max(highestSequence, sequence);
+    }
+
+    /**
+     * Reports the delivery so far, with the number of events sent by the job if known.
+     */
+    synchronized DeliveryReport toReport(Integer numberOfEvents) {
+        final long unique = consumed.cardinality();
+        return DeliveryReport.builder()
+                .jobId(jobId)
+                .received(received)
+                .unique(unique)
+                .duplicates(duplicates)
+                .gaps(highestSequence + 1 - unique)
+                .reordered(reordered)
+                .invalid(invalid)
+                .highestSequence(highestSequence)
+                .missing(numberOfEvents != null ? numberOfEvents - unique : null)
+                .latency(latency.toReport())
+                .build();
+    }
+}
@@ -0,0 +1,144 @@
+package demo.kafka.consumer;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import demo.kafka.event.DemoOutboundEvent;
+import demo.kafka.job.Job;
+import demo.kafka.job.JobRegistry;
+import demo.kafka.rest.api.DeliveryReport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.record.TimestampType;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Consumes the outbound topic, accounting for the delivery of each job's events by their sequence numbers, so that
+ * duplicates from retries, gaps from lost events, and reordering can be reported per job.
+ *
+ * The end to end latency of each event is measured from its record timestamp, set by the producer when the event is
+ * sent, to the consumption of its batch.  It is reported per job, and across all jobs by the
+ * kafka.consumer.end.to.end.latency timer, with a percentile histogram and the p50, p95 and p99 published.  Records
+ * with a broker set timestamp are not measured.
+ *
+ * The events are consumed in batches, with kafka.verifier.concurrency consumers, so setting it to the number of
+ * partitions consumes each partition on its own thread.
+ *
+ * Only started when kafka.verifier.enabled is true.  Only the most recent jobs are tracked, with the oldest evicted
+ * once the limit is reached.
+ */
+@Slf4j
+@Component
+public class DeliveryVerifier {
+
+    static final int MAX_TRACKED_JOBS = 1000;
+
+    /**
+     * The sequence limit of a job not known to this instance, bounding the bitmap to around 1.25MB.
+     */
+    static final long UNKNOWN_JOB_SEQUENCE_LIMIT = 10_000_000;
+
+    static final String LATENCY = "kafka.consumer.end.to.end.latency";
+
+    private final JobRegistry jobRegistry;
+
+    private final Timer latency;
+
+    private final ConcurrentMap<String, DeliveryTracker> trackers = new ConcurrentHashMap<>();
+
+    private final Queue<String> jobIds = new ArrayDeque<>();
+
+    public DeliveryVerifier(JobRegistry jobRegistry, MeterRegistry meterRegistry) {
+        this.jobRegistry = jobRegistry;
+        this.latency = Timer.builder(LATENCY)
+                .description("Time from send to consumption")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(
+            id = "deliveryVerifier",
+            groupId = "${kafka.verifier.groupId:kafka-demo-verifier}",
+            topics = "${kafka.outboundTopic}",
+            batch = "true",
+            concurrency = "${kafka.verifier.concurrency:1}",
+            properties = {
+                    "bootstrap.servers:${kafka.bootstrap-servers}",
+                    "auto.offset.reset:earliest",
+                    "isolation.level:read_committed",
+                    "max.poll.records:${kafka.verifier.maxPollRecords:500}",
+                    "value.deserializer:org.springframework.kafka.support.serializer.ErrorHandlingDeserializer",
+                    "spring.deserializer.value.delegate.class:org.springframework.kafka.support.serializer.JsonDeserializer",
+                    "spring.json.value.default.type:demo.kafka.event.DemoOutboundEvent",
+                    "spring.json.use.type.headers:false"
+            },
+            autoStartup = "${kafka.verifier.enabled:false}")
+    void receive(final List<ConsumerRecord<String, DemoOutboundEvent>> records) {
+        final long consumedAtMs = System.currentTimeMillis();
+        for(ConsumerRecord<String, DemoOutboundEvent> record : records) {
+            final DemoOutboundEvent event = record.value();
+            if(event == null || event.getJobId() == null || event.getSequence() == null) {
+                log.debug("Delivery verifier - skipping event without a job id and sequence: {}", event);
+                continue;
+            }
+            long latencyMs = -1;
+            if(record.timestampType() == TimestampType.CREATE_TIME) {
+                latencyMs = Math.max(0, consumedAtMs - record.timestamp());
+                latency.record(latencyMs, TimeUnit.MILLISECONDS);
+            }
+            record(event.getJobId(), record.partition(), event.getSequence(), latencyMs);
+        }
+    }
+
+    /**
+     * Records the consumption of an event, with its end to end latency in milliseconds, or a negative latency if not
+     * known.  Called from the listener threads, with the trackers read concurrently by report.
+     */
+    void record(String jobId, int partition, long sequence, long latencyMs) {
+        DeliveryTracker tracker = trackers.get(jobId);
+        if(tracker == null) {
+            tracker = track(jobId);
+        }
+        tracker.record(partition, sequence, latencyMs);
+    }
+
+    /**
+     * Starts tracking the job if not already tracked, evicting the oldest job once the limit is reached.  The sequence
+     * numbers of a job known to this instance are limited to its number of events.
+     */
+    private synchronized DeliveryTracker track(String jobId) {
+        DeliveryTracker tracker = trackers.get(jobId);
+        if(tracker == null) {
+            final long sequenceLimit = jobRegistry.get(jobId)
+                    .map(job -> (long) job.getNumberOfEvents())
+                    .orElse(UNKNOWN_JOB_SEQUENCE_LIMIT);
+            tracker = new DeliveryTracker(jobId, sequenceLimit);
+            trackers.put(jobId, tracker);
+            jobIds.add(jobId);
+            if(jobIds.size() > MAX_TRACKED_JOBS) {
+                trackers.remove(jobIds.poll());
+            }
+        }
+        return tracker;
+    }
+
+    /**
+     * Reports the delivery of the job's events consumed so far, or empty if none of its events have been consumed.
+     */
+    public Optional<DeliveryReport> report(String jobId) {
+        final DeliveryTracker tracker = trackers.get(jobId);
+        if(tracker == null) {
+            return Optional.empty();
+        }
+        return Optional.of(tracker.toReport(jobRegistry.get(jobId).map(Job::getNumberOfEvents).orElse(null)));
+    }
+}
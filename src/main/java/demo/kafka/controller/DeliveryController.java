@@ -0,0 +1,31 @@
+package demo.kafka.controller;
+
+import demo.kafka.consumer.DeliveryVerifier;
+import demo.kafka.rest.api.DeliveryReport;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/v1/demo")
+public class DeliveryController {
+
+    @Autowired
+    private final DeliveryVerifier deliveryVerifier;
+
+    /**
+     * Returns the delivery of the job's events consumed by the verifier, or a 404 NOT FOUND if none of its events have
+     * been consumed.
+     */
+    @GetMapping("/jobs/{jobId}/delivery")
+    public ResponseEntity<DeliveryReport> getDelivery(@PathVariable("jobId") String jobId) {
+        return deliveryVerifier.report(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
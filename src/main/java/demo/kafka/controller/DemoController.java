@@ -1,17 +1,30 @@
 package demo.kafka.controller;
 
+import java.net.URI;
+
+import demo.kafka.job.Job;
+import demo.kafka.job.JobProgressPublisher;
+import demo.kafka.job.JobRegistry;
+import demo.kafka.producer.CircuitBreakerOpenException;
+import demo.kafka.rest.api.JobStatus;
+import demo.kafka.rest.api.KeyStrategy;
 import demo.kafka.rest.api.TriggerEventsRequest;
 import demo.kafka.service.DemoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -22,30 +35,107 @@ public class DemoController {
     @Autowired
     private final DemoService demoService;
 
+    @Autowired
+    private final JobRegistry jobRegistry;
+
+    @Autowired
+    private final JobProgressPublisher jobProgressPublisher;
+
     /**
      * If request param 'async' is present and true, then returns a 202 ACCEPTED immediately, as the send happens asynchronously.
      *
      * If request param 'async' is not present or false, then returns a 200 SUCCESS once send is complete.
+     *
+     * In both cases the body is the id of the job, whose progress can be queried via the jobs endpoint.
+     *
+     * If the circuit breaker is open the sends fail fast, returning a 503 SERVICE UNAVAILABLE.  If an async trigger
+     * cannot be submitted, as the executor is saturated or shut down, its job is failed and a 503 SERVICE UNAVAILABLE
+     * is returned.
      */
     @PostMapping("/trigger")
     public ResponseEntity<String> trigger(
             @RequestBody TriggerEventsRequest request,
             @RequestParam(value = "async", required = false, defaultValue = "false") Boolean async) {
-        if(request.getNumberOfEvents() == null || request.getNumberOfEvents()<1) {
-            log.error("Invalid number of events");
+        if(!isValid(request)) {
             return ResponseEntity.badRequest().build();
         }
         try {
+            final Job job = jobRegistry.create(request.getNumberOfEvents());
             if(async) {
-                demoService.triggerAsync(request);
-                return ResponseEntity.accepted().build();
+                try {
+                    demoService.triggerAsync(job, request);
+                } catch(TaskRejectedException e) {
+                    log.error("Job {} rejected: {}", job.getId(), e.getMessage());
+                    job.fail(e);
+                    return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+                }
+                return ResponseEntity.accepted().location(URI.create("/v1/demo/jobs/" + job.getId())).body(job.getId());
             } else {
-                demoService.triggerSync(request);
-                return ResponseEntity.ok().build();
+                demoService.triggerSync(job, request);
+                return ResponseEntity.ok(job.getId());
             }
+        } catch(CircuitBreakerOpenException e) {
+            log.error(e.getMessage());
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
         } catch(Exception e) {
             log.error(e.getMessage());
             return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    /**
+     * Triggers sending the events, streaming the progress of the job as Server-Sent Events until it completes.
+     *
+     * A 'progress' event with the job status is sent every interval, then a 'complete' event with the final status,
+     * including the error if the job failed.  Returns a 400 BAD REQUEST without streaming if the request is invalid.
+     */
+    @PostMapping(value = "/trigger/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> triggerStream(
+            @RequestBody TriggerEventsRequest request,
+            @RequestParam(value = "intervalMs", required = false, defaultValue = "1000") Long intervalMs) {
+        if(!isValid(request) || intervalMs < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        final Job job = jobRegistry.create(request.getNumberOfEvents());
+        final SseEmitter emitter = jobProgressPublisher.stream(job, intervalMs);
+        try {
+            demoService.triggerAsync(job, request);
+        } catch(Exception e) {
+            log.error(e.getMessage());
+            job.fail(e);
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Returns the progress of the job with the given id, or a 404 NOT FOUND if there is no such job.
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<JobStatus> getJob(@PathVariable("jobId") String jobId) {
+        return jobRegistry.get(jobId)
+                .map(job -> ResponseEntity.ok(job.toStatus()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private boolean isValid(TriggerEventsRequest request) {
+        if(request.getNumberOfEvents() == null || request.getNumberOfEvents()<1) {
+            log.error("Invalid number of events");
+            return false;
+        }
+        if((request.getTargetRate() != null && request.getTargetRate()<1)
+                || (request.getRampUpSeconds() != null && request.getRampUpSeconds()<0)) {
+            log.error("Invalid target rate or ramp up");
+            return false;
+        }
+        if(request.getKeyStrategy() == KeyStrategy.FIXED
+                && (request.getNumberOfKeys() == null || request.getNumberOfKeys()<1)) {
+            log.error("Invalid number of keys");
+            return false;
+        }
+        if(!PayloadSizeValidator.isValid(request.getPayloadSize())) {
+            log.error("Invalid payload size");
+            return false;
+        }
+        return true;
+    }
 }
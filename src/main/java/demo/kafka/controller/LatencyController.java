@@ -0,0 +1,80 @@
+package demo.kafka.controller;
+
+import java.util.List;
+
+import demo.kafka.job.Job;
+import demo.kafka.job.JobRegistry;
+import demo.kafka.producer.ProducerMetrics;
+import demo.kafka.producer.SendLatencyRecorder;
+import demo.kafka.rest.api.LatencyReport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Reports the HdrHistogram recorded send to acknowledgement latencies, with each report carrying its histogram in a
+ * serialized form that can be merged with others, such as to compare the runs of each injected fault.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/v1/demo")
+public class LatencyController {
+
+    @Autowired
+    private final JobRegistry jobRegistry;
+
+    @Autowired
+    private final ProducerMetrics producerMetrics;
+
+    /**
+     * Returns the latencies of every send acknowledged since startup or the last reset.
+     */
+    @GetMapping("/latency")
+    public ResponseEntity<LatencyReport> getLatency() {
+        return ResponseEntity.ok(producerMetrics.getSendLatency().toReport());
+    }
+
+    /**
+     * Resets the latencies of every send, to start recording a new run.
+     */
+    @DeleteMapping("/latency")
+    public ResponseEntity<Void> resetLatency() {
+        producerMetrics.getSendLatency().reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Returns the latencies of the job's sends, corrected for coordinated omission if the job had a target rate, or a
+     * 404 NOT FOUND if there is no such job.
+     */
+    @GetMapping("/jobs/{jobId}/latency")
+    public ResponseEntity<LatencyReport> getJobLatency(@PathVariable("jobId") String jobId) {
+        return jobRegistry.get(jobId)
+                .map(Job::toLatencyReport)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Merges the serialized histograms of latency reports into a single report, or returns a 400 BAD REQUEST if any
+     * histogram is not valid.
+     */
+    @PostMapping("/latency/merge")
+    public ResponseEntity<LatencyReport> merge(@RequestBody List<String> histograms) {
+        try {
+            return ResponseEntity.ok(SendLatencyRecorder.toReport(SendLatencyRecorder.merge(histograms)));
+        } catch(IllegalArgumentException e) {
+            log.error(e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
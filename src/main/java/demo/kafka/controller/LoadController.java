@@ -0,0 +1,90 @@
+package demo.kafka.controller;
+
+import demo.kafka.job.Job;
+import demo.kafka.job.JobRegistry;
+import demo.kafka.rest.api.KeyStrategy;
+import demo.kafka.rest.api.LoadReport;
+import demo.kafka.rest.api.LoadScenarioRequest;
+import demo.kafka.service.LoadService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Slf4j
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/v1/demo")
+public class LoadController {
+
+    /**
+     * The most worker threads a scenario can fan out across.
+     */
+    static final int MAX_CONCURRENCY = 64;
+
+    @Autowired
+    private final LoadService loadService;
+
+    @Autowired
+    private final JobRegistry jobRegistry;
+
+    /**
+     * Runs the load scenario, returning a 200 SUCCESS with the report of its throughput and latency distribution once
+     * complete, or a 500 INTERNAL SERVER ERROR with the report including the error if any send failed.  Returns a 503
+     * SERVICE UNAVAILABLE if there are not enough load workers free for the scenario.
+     */
+    @PostMapping("/load")
+    public ResponseEntity<LoadReport> load(@RequestBody LoadScenarioRequest scenario) {
+        if(!isValid(scenario)) {
+            return ResponseEntity.badRequest().build();
+        }
+        final Job job = jobRegistry.create(scenario.getNumberOfEvents());
+        final LoadReport report;
+        try {
+            report = loadService.run(job, scenario);
+        } catch(TaskRejectedException e) {
+            log.error("Job {} rejected: {}", job.getId(), e.getMessage());
+            job.fail(e);
+            return new ResponseEntity<>(LoadReport.builder().jobId(job.getId()).status(job.getStatus().name()).error(e.getMessage()).build(), HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        if(job.getStatus() == Job.Status.FAILED) {
+            return new ResponseEntity<>(report, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    private boolean isValid(LoadScenarioRequest scenario) {
+        if(scenario.getNumberOfEvents() == null || scenario.getNumberOfEvents()<1) {
+            log.error("Invalid number of events");
+            return false;
+        }
+        if(scenario.getConcurrency() != null && (scenario.getConcurrency()<1 || scenario.getConcurrency()>MAX_CONCURRENCY)) {
+            log.error("Invalid concurrency");
+            return false;
+        }
+        if(scenario.getTargetRate() != null && scenario.getTargetRate()<1) {
+            log.error("Invalid target rate");
+            return false;
+        }
+        if(scenario.getTargetRate() != null && scenario.getTargetRate() < (scenario.getConcurrency() != null ? scenario.getConcurrency() : 1)) {
+            log.error("Target rate below the concurrency, so each worker cannot be given a rate of at least 1");
+            return false;
+        }
+        if(scenario.getKeyStrategy() == KeyStrategy.FIXED
+                && (scenario.getNumberOfKeys() == null || scenario.getNumberOfKeys()<1)) {
+            log.error("Invalid number of keys");
+            return false;
+        }
+        if(!PayloadSizeValidator.isValid(scenario.getPayloadSize())) {
+            log.error("Invalid payload size");
+            return false;
+        }
+        return true;
+    }
+}
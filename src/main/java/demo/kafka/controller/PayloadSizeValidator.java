@@ -0,0 +1,34 @@
+package demo.kafka.controller;
+
+import demo.kafka.rest.api.PayloadDistribution;
+import demo.kafka.rest.api.PayloadSize;
+
+/**
+ * Validates the payload size of a trigger request or load scenario.
+ */
+final class PayloadSizeValidator {
+
+    private PayloadSizeValidator() {
+    }
+
+    /**
+     * Whether the payload size is absent, or has the sizes required by its distribution, each up to the maximum.
+     */
+    static boolean isValid(PayloadSize payloadSize) {
+        if(payloadSize == null) {
+            return true;
+        }
+        if(payloadSize.getDistribution() == PayloadDistribution.FIXED) {
+            return isValidBytes(payloadSize.getBytes());
+        }
+        if(payloadSize.getDistribution() == PayloadDistribution.UNIFORM || payloadSize.getDistribution() == PayloadDistribution.LOG_UNIFORM) {
+            return isValidBytes(payloadSize.getMinBytes()) && isValidBytes(payloadSize.getMaxBytes())
+                    && payloadSize.getMinBytes() <= payloadSize.getMaxBytes();
+        }
+        return false;
+    }
+
+    private static boolean isValidBytes(Integer bytes) {
+        return bytes != null && bytes >= 0 && bytes <= PayloadSize.MAX_BYTES;
+    }
+}
@@ -1,5 +1,6 @@
 package demo.kafka.event;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -12,4 +13,20 @@ import lombok.NoArgsConstructor;
 public class DemoOutboundEvent {
 
     private String name;
+
+    /**
+     * The id of the job that sent the event.
+     */
+    private String jobId;
+
+    /**
+     * The sequence number of the event within its job, from 0.
+     */
+    private Long sequence;
+
+    /**
+     * Random padding sizing the event, left out of the JSON when not present.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String payload;
 }
@@ -0,0 +1,233 @@
+package demo.kafka.event;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Serializes a DemoOutboundEvent to the same JSON as the JsonSerializer, writing it directly rather than through
+ * Jackson's ObjectMapper.
+ *
+ * The JSON is written into a per thread buffer that is reused between records, with only the exact sized copy returned
+ * to the producer allocated per record.  The buffer grows to the encoded length of the record, and is released after a
+ * record larger than the retained buffer size, so a thread does not hold on to a buffer sized for its largest record.
+ * Unlike the JsonSerializer no type headers are added, so consumers using the
+ * JsonDeserializer must configure the default type.
+ */
+public class DemoOutboundEventSerializer implements Serializer<DemoOutboundEvent> {
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] NAME_FIELD = "{\"name\":".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] JOB_ID_FIELD = ",\"jobId\":".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] SEQUENCE_FIELD = ",\"sequence\":".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] PAYLOAD_FIELD = ",\"payload\":".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<Buffer> BUFFER = ThreadLocal.withInitial(Buffer::new);
+
+    @Override
+    public byte[] serialize(String topic, DemoOutboundEvent event) {
+        if(event == null) {
+            return null;
+        }
+        final Buffer buffer = BUFFER.get();
+        buffer.reset();
+        buffer.write(NAME_FIELD);
+        buffer.writeString(event.getName());
+        buffer.write(JOB_ID_FIELD);
+        buffer.writeString(event.getJobId());
+        buffer.write(SEQUENCE_FIELD);
+        buffer.writeLong(event.getSequence());
+        if(event.getPayload() != null) {
+            buffer.write(PAYLOAD_FIELD);
+            buffer.writeString(event.getPayload());
+        }
+        buffer.write((byte) '}');
+        final byte[] serialized = buffer.toByteArray();
+        buffer.trim();
+        return serialized;
+    }
+
+    /**
+     * The size of the calling thread's buffer, as retained between records.
+     */
+    static int retainedBufferSize() {
+        return BUFFER.get().bytes.length;
+    }
+
+    /**
+     * A growable byte buffer writing JSON values as UTF-8.
+     */
+    private static final class Buffer {
+
+        private byte[] bytes = new byte[INITIAL_BUFFER_SIZE];
+
+        private int length;
+
+        void reset() {
+            length = 0;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+
+        /**
+         * Releases the buffer if it has grown beyond the retained buffer size.
+         */
+        void trim() {
+            if(bytes.length > MAX_RETAINED_BUFFER_SIZE) {
+                bytes = new byte[INITIAL_BUFFER_SIZE];
+            }
+        }
+
+        void write(byte b) {
+            ensureCapacity(1);
+            bytes[length++] = b;
+        }
+
+        void write(byte[] b) {
+            ensureCapacity(b.length);
+            System.arraycopy(b, 0, bytes, length, b.length);
+            length += b.length;
+        }
+
+        /**
+         * Writes the value as a quoted JSON string, escaping as Jackson does.
+         */
+        void writeString(String value) {
+            if(value == null) {
+                write(NULL);
+                return;
+            }
+            ensureCapacity(encodedLength(value) + 2);
+            bytes[length++] = '"';
+            for(int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if(c == '"' || c == '\\') {
+                    bytes[length++] = '\\';
+                    bytes[length++] = (byte) c;
+                } else if(c < 0x20) {
+                    writeControl(c);
+                } else if(c < 0x80) {
+                    bytes[length++] = (byte) c;
+                } else if(c < 0x800) {
+                    bytes[length++] = (byte) (0xc0 | (c >> 6));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3f));
+                } else if(Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    bytes[length++] = (byte) (0xf0 | (codePoint >> 18));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else {
+                    bytes[length++] = (byte) (0xe0 | (c >> 12));
+                    bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            bytes[length++] = '"';
+        }
+
+        /**
+         * Writes the value as a JSON number, without creating an intermediate String.
+         */
+        void writeLong(Long value) {
+            if(value == null) {
+                write(NULL);
+                return;
+            }
+            long remaining = value;
+            if(remaining == Long.MIN_VALUE) {
+                write(Long.toString(remaining).getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            // A long takes at most 20 bytes, including the sign.
+            ensureCapacity(20);
+            if(remaining < 0) {
+                bytes[length++] = '-';
+                remaining = -remaining;
+            }
+            final int start = length;
+            do {
+                bytes[length++] = (byte) ('0' + remaining % 10);
+                remaining /= 10;
+            } while(remaining > 0);
+            // The digits were written least significant first.
+            for(int i = start, j = length - 1; i < j; i++, j--) {
+                final byte digit = bytes[i];
+                bytes[i] = bytes[j];
+                bytes[j] = digit;
+            }
+        }
+
+        /**
+         * The length of the value encoded as an escaped JSON string without its quotes, with a fast path for the
+         * common case of printable ASCII.
+         */
+        private static int encodedLength(String value) {
+            final int chars = value.length();
+            int i = 0;
+            while(i < chars) {
+                final char c = value.charAt(i);
+                if(c < 0x20 || c >= 0x80 || c == '"' || c == '\\') {
+                    break;
+                }
+                i++;
+            }
+            int encoded = i;
+            for( ; i < chars; i++) {
+                final char c = value.charAt(i);
+                if(c == '"' || c == '\\') {
+                    encoded += 2;
+                } else if(c < 0x20) {
+                    encoded += c == '\b' || c == '\t' || c == '\n' || c == '\f' || c == '\r' ? 2 : 6;
+                } else if(c < 0x80) {
+                    encoded += 1;
+                } else if(c < 0x800) {
+                    encoded += 2;
+                } else if(Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    encoded += 4;
+                    i++;
+                } else {
+                    encoded += 3;
+                }
+            }
+            return encoded;
+        }
+
+        private void writeControl(char c) {
+            bytes[length++] = '\\';
+            switch(c) {
+                case '\b' -> bytes[length++] = 'b';
+                case '\t' -> bytes[length++] = 't';
+                case '\n' -> bytes[length++] = 'n';
+                case '\f' -> bytes[length++] = 'f';
+                case '\r' -> bytes[length++] = 'r';
+                default -> {
+                    bytes[length++] = 'u';
+                    bytes[length++] = '0';
+                    bytes[length++] = '0';
+                    bytes[length++] = HEX[c >> 4];
+                    bytes[length++] = HEX[c & 0xf];
+                }
+            }
+        }
+
+        private void ensureCapacity(int required) {
+            if(length + required > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + required));
+            }
+        }
+    }
+}
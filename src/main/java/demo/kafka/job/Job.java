@@ -0,0 +1,186 @@
+package demo.kafka.job;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import demo.kafka.producer.SendLatencyRecorder;
+import demo.kafka.producer.SendListener;
+import demo.kafka.rest.api.JobStatus;
+import demo.kafka.rest.api.LatencyReport;
+import lombok.Getter;
+import org.springframework.kafka.support.SendResult;
+
+/**
+ * Tracks the progress of a single trigger request.
+ *
+ * The counts are updated by the sending thread and the producer's network thread without locking, so a status read
+ * while the job is running is a close approximation rather than a consistent snapshot.
+ */
+public class Job implements SendListener {
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    @Getter
+    private final String id;
+
+    @Getter
+    private final int numberOfEvents;
+
+    private final LongAdder sent = new LongAdder();
+
+    private final LongAdder acked = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder spilled = new LongAdder();
+
+    private final LongAdder transactions = new LongAdder();
+
+    private final ConcurrentMap<Integer, LongAdder> partitionAcks = new ConcurrentHashMap<>();
+
+    @Getter
+    private volatile Status status = Status.PENDING;
+
+    private volatile Instant startedAt;
+
+    private volatile long startedNanos;
+
+    private volatile long completedNanos;
+
+    private volatile String error;
+
+    private volatile String producerMode;
+
+    private volatile boolean paced;
+
+    /**
+     * Created on the first latency recorded, so that jobs held in the registry without sending hold no histogram.
+     */
+    private volatile SendLatencyRecorder latency;
+
+    Job(String id, int numberOfEvents) {
+        this.id = id;
+        this.numberOfEvents = numberOfEvents;
+    }
+
+    /**
+     * Starts the job, recording the producer mode it sends with so that the throughput of each mode can be compared,
+     * and whether its sends are paced, with their latencies then measured from their intended send times so corrected
+     * for coordinated omission.
+     */
+    public void start(String producerMode, boolean paced) {
+        this.producerMode = producerMode;
+        this.paced = paced;
+        startedAt = Instant.now();
+        startedNanos = System.nanoTime();
+        status = Status.RUNNING;
+    }
+
+    public void complete() {
+        completedNanos = System.nanoTime();
+        status = Status.COMPLETED;
+    }
+
+    public void fail(Exception e) {
+        completedNanos = System.nanoTime();
+        error = e.getMessage();
+        status = Status.FAILED;
+    }
+
+    public boolean isDone() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    @Override
+    public void onSent() {
+        sent.increment();
+    }
+
+    @Override
+    public void onAcknowledged(SendResult result) {
+        acked.increment();
+        if(result != null && result.getRecordMetadata() != null) {
+            partitionAcks.computeIfAbsent(result.getRecordMetadata().partition(), partition -> new LongAdder()).increment();
+        }
+    }
+
+    @Override
+    public void onLatency(long latencyNanos) {
+        SendLatencyRecorder recorder = latency;
+        if(recorder == null) {
+            synchronized(this) {
+                if(latency == null) {
+                    latency = new SendLatencyRecorder(paced);
+                }
+                recorder = latency;
+            }
+        }
+        recorder.record(latencyNanos);
+    }
+
+    @Override
+    public void onFailed(Throwable error) {
+        failed.increment();
+    }
+
+    @Override
+    public void onSpilled() {
+        spilled.increment();
+    }
+
+    @Override
+    public void onTransactionCommitted() {
+        transactions.increment();
+    }
+
+    /**
+     * The time since the job started, or the duration of the job once done.
+     */
+    public long getElapsedNanos() {
+        if(status == Status.PENDING) {
+            return 0;
+        }
+        return (isDone() ? completedNanos : System.nanoTime()) - startedNanos;
+    }
+
+    /**
+     * The distribution of the send to acknowledgement latencies of the job's events.
+     */
+    public LatencyReport toLatencyReport() {
+        final SendLatencyRecorder recorder = latency;
+        return (recorder != null ? recorder : new SendLatencyRecorder(paced)).toReport();
+    }
+
+    public JobStatus toStatus() {
+        final long elapsedNanos = getElapsedNanos();
+        final long ackedCount = acked.sum();
+        final Map<Integer, Long> partitions = new TreeMap<>();
+        partitionAcks.forEach((partition, count) -> partitions.put(partition, count.sum()));
+        return JobStatus.builder()
+                .jobId(id)
+                .status(status.name())
+                .numberOfEvents(numberOfEvents)
+                .sent(sent.sum())
+                .acked(ackedCount)
+                .failed(failed.sum())
+                .spilled(spilled.sum())
+                .startedAt(startedAt)
+                .elapsedMs(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .eventsPerSecond(elapsedNanos > 0 ? ackedCount * 1_000_000_000d / elapsedNanos : 0d)
+                .partitions(partitions)
+                .producerMode(producerMode)
+                .transactions(transactions.sum())
+                .error(error)
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package demo.kafka.job;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import demo.kafka.rest.api.JobStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs the progress of each running job at a fixed interval.
+ *
+ * The progress is read from the job's counts on a scheduler thread of its own, so the logging cost stays constant
+ * however many events are sent, and the sending threads never wait on the log appender.
+ */
+@Slf4j
+@Component
+public class JobProgressLogger implements DisposableBean {
+
+    private final JobRegistry jobRegistry;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "job-progress-logger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public JobProgressLogger(JobRegistry jobRegistry,
+                             @Value("${jobs.progressLogIntervalMs:5000}") long intervalMs) {
+        this.jobRegistry = jobRegistry;
+        if(intervalMs > 0) {
+            scheduler.scheduleAtFixedRate(this::logProgress, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Logs the progress of each running job, returning the number of jobs logged.
+     */
+    int logProgress() {
+        int logged = 0;
+        for(Job job : jobRegistry.getRunning()) {
+            final JobStatus status = job.toStatus();
+            log.info("Job {} - events sent so far: {} of {} - acked: {} - failed: {} - events per second: {}",
+                    status.getJobId(), status.getSent(), status.getNumberOfEvents(), status.getAcked(), status.getFailed(),
+                    String.format("%.1f", status.getEventsPerSecond()));
+            logged++;
+        }
+        return logged;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,119 @@
+package demo.kafka.job;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Streams the progress of a job as Server-Sent Events.
+ *
+ * A 'progress' event with the job status is sent at each interval while the job runs, followed by a 'complete' event
+ * with the final status once the job completes or fails, after which the stream is closed.  The progress of every
+ * streamed job is scheduled from a single scheduler thread, so the sending threads are never held up by a slow client.
+ *
+ * Each event is sent to its client on a sender thread, so a slow client does not hold up the streams of other jobs.
+ * A stream has at most one event being sent at a time, with the ticks falling due meanwhile dropped, so a client that
+ * falls behind receives the latest status once it catches up rather than a backlog.  The complete event is retried at
+ * each tick until sent.
+ */
+@Slf4j
+@Component
+public class JobProgressPublisher implements DisposableBean {
+
+    static final String PROGRESS_EVENT = "progress";
+    static final String COMPLETE_EVENT = "complete";
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "job-progress");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicInteger senderIds = new AtomicInteger();
+
+    private final ExecutorService senders = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "job-progress-sender-" + senderIds.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Streams the progress of the job at the given interval, until the job is done or the client disconnects.
+     */
+    public SseEmitter stream(Job job, long intervalMs) {
+        final SseEmitter emitter = new SseEmitter(0L);
+        stream(job, emitter, intervalMs);
+        return emitter;
+    }
+
+    void stream(Job job, SseEmitter emitter, long intervalMs) {
+        final AtomicReference<ScheduledFuture<?>> publishing = new AtomicReference<>();
+        final AtomicBoolean stopped = new AtomicBoolean();
+        final AtomicBoolean sending = new AtomicBoolean();
+        final Runnable stop = () -> {
+            stopped.set(true);
+            final ScheduledFuture<?> future = publishing.get();
+            if(future != null) {
+                future.cancel(false);
+            }
+        };
+        emitter.onCompletion(stop);
+        emitter.onTimeout(stop);
+        emitter.onError(error -> stop.run());
+        publishing.set(scheduler.scheduleAtFixedRate(() -> {
+            if(stopped.get()) {
+                return;
+            }
+            if(!sending.compareAndSet(false, true)) {
+                log.debug("Dropped progress tick of job {} as the client is falling behind", job.getId());
+                return;
+            }
+            senders.execute(() -> {
+                try {
+                    publish(job, emitter, stopped, stop);
+                } finally {
+                    sending.set(false);
+                }
+            });
+        }, 0, intervalMs, TimeUnit.MILLISECONDS));
+    }
+
+    private void publish(Job job, SseEmitter emitter, AtomicBoolean stopped, Runnable stop) {
+        if(stopped.get()) {
+            return;
+        }
+        // Read whether the job is done before its status, so the final counts are included in the complete event.
+        final boolean done = job.isDone();
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(job.getId())
+                    .name(done ? COMPLETE_EVENT : PROGRESS_EVENT)
+                    .data(job.toStatus()));
+            if(done) {
+                stop.run();
+                emitter.complete();
+            }
+        } catch(IOException | IllegalStateException e) {
+            // The client has disconnected, or the stream has already been closed.
+            log.debug("Stopped streaming progress of job {}: {}", job.getId(), e.getMessage());
+            stop.run();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        senders.shutdownNow();
+    }
+}
@@ -0,0 +1,64 @@
+package demo.kafka.job;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the jobs created for trigger requests, so that their progress can be queried.
+ *
+ * Only the most recent jobs are retained, with the oldest finished jobs evicted once the limit is reached.  Jobs that
+ * are pending or running are never evicted, so that their progress can be queried until they finish, with the limit
+ * exceeded while they run if need be.
+ */
+@Component
+public class JobRegistry {
+
+    static final int MAX_RETAINED_JOBS = 1000;
+
+    private final ConcurrentMap<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private final Deque<String> jobIds = new ArrayDeque<>();
+
+    public synchronized Job create(int numberOfEvents) {
+        final Job job = new Job(UUID.randomUUID().toString(), numberOfEvents);
+        jobs.put(job.getId(), job);
+        jobIds.add(job.getId());
+        evictFinished();
+        return job;
+    }
+
+    /**
+     * Evicts the oldest finished jobs while more than the limit are retained.
+     */
+    private void evictFinished() {
+        final Iterator<String> ids = jobIds.iterator();
+        while(jobs.size() > MAX_RETAINED_JOBS && ids.hasNext()) {
+            final String jobId = ids.next();
+            if(jobs.get(jobId).isDone()) {
+                ids.remove();
+                jobs.remove(jobId);
+            }
+        }
+    }
+
+    public Optional<Job> get(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * The retained jobs that are currently running.
+     */
+    public List<Job> getRunning() {
+        return jobs.values().stream()
+                .filter(job -> job.getStatus() == Job.Status.RUNNING)
+                .toList();
+    }
+}
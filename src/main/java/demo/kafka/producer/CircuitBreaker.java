@@ -0,0 +1,210 @@
+package demo.kafka.producer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import demo.kafka.properties.KafkaDemoProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fails sends fast while the broker is rejecting them with non-retriable errors, such as InvalidRequiredAcksException
+ * under broker misconfiguration, rather than each send going through the producer before failing.
+ *
+ * While CLOSED the outcome of each of the last sliding window of sends is recorded, a send failing with a
+ * non-retriable error counting as a failure.  Retriable errors are left to the producer's retries, so count as a
+ * success.  Once at least the minimum sends have been recorded and the failure rate reaches the threshold the breaker
+ * OPENS, rejecting every send with a CircuitBreakerOpenException.  After the open duration it is HALF_OPEN, letting
+ * through the probe sends.  If every probe succeeds the breaker CLOSES, otherwise it OPENS again.
+ *
+ * Each change of state starts a new generation, with each permitted send tagged with the generation it was permitted
+ * in.  Only the outcomes of sends permitted in the current generation are recorded, so a send still in flight from
+ * before the breaker opened does not count as a probe, nor towards the failure rate once closed again.
+ *
+ * The published metrics are kafka.producer.circuit.breaker.state, 0 when closed, 1 when open and 2 when half open, and
+ * kafka.producer.circuit.breaker.rejected, the count of sends rejected.
+ */
+@Slf4j
+@Component
+public class CircuitBreaker {
+
+    static final String STATE = "kafka.producer.circuit.breaker.state";
+    static final String REJECTED = "kafka.producer.circuit.breaker.rejected";
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final boolean enabled;
+
+    private final int minimumSends;
+
+    private final int failureRateThreshold;
+
+    private final long openDurationNanos;
+
+    private final int probes;
+
+    private final LongSupplier clock;
+
+    /**
+     * The outcome of each of the last sends, true if failed, written in turn.
+     */
+    private final boolean[] outcomes;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile State state = State.CLOSED;
+
+    private volatile long generation;
+
+    private int recorded;
+
+    private int failures;
+
+    private int next;
+
+    private long openedNanos;
+
+    private int probesStarted;
+
+    private int probesSucceeded;
+
+    @Autowired
+    public CircuitBreaker(KafkaDemoProperties properties, MeterRegistry meterRegistry) {
+        this(properties.getCircuitBreaker(), System::nanoTime);
+        Gauge.builder(STATE, this, breaker -> breaker.getState().ordinal())
+                .description("The circuit breaker state: 0 closed, 1 open, 2 half open")
+                .register(meterRegistry);
+        FunctionCounter.builder(REJECTED, rejected, AtomicLong::get)
+                .description("Sends rejected by the open circuit breaker")
+                .register(meterRegistry);
+    }
+
+    CircuitBreaker(KafkaDemoProperties.CircuitBreaker config, LongSupplier clock) {
+        this.enabled = config.isEnabled();
+        this.outcomes = new boolean[config.getSlidingWindowSize()];
+        this.minimumSends = config.getMinimumSends();
+        this.failureRateThreshold = config.getFailureRateThreshold();
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(config.getOpenDurationMs());
+        this.probes = config.getProbes();
+        this.clock = clock;
+    }
+
+    /**
+     * Permits a send, throwing a CircuitBreakerOpenException if the breaker is open, or half open with every probe
+     * already started.  Returns the permit to record the send's outcome with.
+     */
+    public long acquire() {
+        // Read before the state, so that a send permitted while closed is not tagged with a later generation.
+        final long permit = generation;
+        if(!enabled || state == State.CLOSED) {
+            return permit;
+        }
+        synchronized(this) {
+            if(state == State.OPEN && clock.getAsLong() - openedNanos >= openDurationNanos) {
+                log.info("Circuit breaker half open - probing with {} sends", probes);
+                state = State.HALF_OPEN;
+                generation++;
+                probesStarted = 0;
+                probesSucceeded = 0;
+            }
+            if(state == State.HALF_OPEN && probesStarted < probes) {
+                probesStarted++;
+                return generation;
+            }
+            if(state == State.CLOSED) {
+                return generation;
+            }
+        }
+        rejected.incrementAndGet();
+        throw new CircuitBreakerOpenException(state);
+    }
+
+    /**
+     * Records the outcome of a send with the permit it was acquired with, with the error null if it succeeded.  The
+     * outcome is ignored if the state has changed since the send was permitted.
+     */
+    public void record(long permit, Throwable error) {
+        if(!enabled) {
+            return;
+        }
+        final boolean failed = error != null && !KafkaProducer.isRetriable(error);
+        synchronized(this) {
+            if(permit != generation) {
+                return;
+            }
+            if(state == State.HALF_OPEN) {
+                if(failed) {
+                    open();
+                } else if(++probesSucceeded >= probes) {
+                    close();
+                }
+            } else if(state == State.CLOSED) {
+                if(recorded == outcomes.length) {
+                    failures -= outcomes[next] ? 1 : 0;
+                } else {
+                    recorded++;
+                }
+                outcomes[next] = failed;
+                failures += failed ? 1 : 0;
+                next = (next + 1) % outcomes.length;
+                if(recorded >= minimumSends && failures * 100 >= failureRateThreshold * recorded) {
+                    open();
+                }
+            }
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * The percentage of the sends in the sliding window that failed with a non-retriable error.
+     */
+    public synchronized double getFailureRate() {
+        return recorded > 0 ? failures * 100d / recorded : 0d;
+    }
+
+    public synchronized int getRecorded() {
+        return recorded;
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private void open() {
+        log.warn("Circuit breaker open - non-retriable failure rate: {}% - rejecting sends for {}ms",
+                getFailureRate(), TimeUnit.NANOSECONDS.toMillis(openDurationNanos));
+        state = State.OPEN;
+        generation++;
+        openedNanos = clock.getAsLong();
+        resetWindow();
+    }
+
+    private void close() {
+        log.info("Circuit breaker closed");
+        state = State.CLOSED;
+        generation++;
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        recorded = 0;
+        failures = 0;
+        next = 0;
+    }
+}
@@ -0,0 +1,33 @@
+package demo.kafka.producer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes the state of the circuit breaker through actuator, at /actuator/circuitbreaker.
+ */
+@Component
+@Endpoint(id = "circuitbreaker")
+@RequiredArgsConstructor
+public class CircuitBreakerEndpoint {
+
+    @Autowired
+    private final CircuitBreaker circuitBreaker;
+
+    @ReadOperation
+    public Map<String, Object> circuitBreaker() {
+        final Map<String, Object> details = new LinkedHashMap<>();
+        details.put("enabled", circuitBreaker.isEnabled());
+        details.put("state", circuitBreaker.getState());
+        details.put("failureRate", circuitBreaker.getFailureRate());
+        details.put("recordedSends", circuitBreaker.getRecorded());
+        details.put("rejectedSends", circuitBreaker.getRejected());
+        return details;
+    }
+}
@@ -0,0 +1,12 @@
+package demo.kafka.producer;
+
+/**
+ * Thrown in place of a send while the circuit breaker is open, as the broker is rejecting sends with non-retriable
+ * errors.
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    public CircuitBreakerOpenException(CircuitBreaker.State state) {
+        super("Circuit breaker " + state + ": sends are failing fast as the broker is rejecting them with non-retriable errors");
+    }
+}
@@ -1,10 +1,21 @@
 package demo.kafka.producer;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
 import demo.kafka.properties.KafkaDemoProperties;
+import demo.kafka.spill.SpillLog;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.RetriableException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.KafkaOperations;
 import org.springframework.kafka.core.KafkaProducerException;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
@@ -18,12 +29,24 @@ public class KafkaProducer {
     private final KafkaDemoProperties properties;
 
     @Autowired
-    private final KafkaTemplate kafkaTemplate;
+    private final ProducerPool producerPool;
+
+    @Autowired
+    private final ProducerMetrics producerMetrics;
+
+    @Autowired
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * Present when the spill log is enabled.
+     */
+    @Autowired
+    private final Optional<SpillLog> spillLog;
 
     public SendResult sendMessage(Object payload) throws Exception {
         final ProducerRecord<String, Object> record = new ProducerRecord<>(properties.getOutboundTopic(), payload);
         try {
-            return (SendResult) kafkaTemplate.send(record).get();
+            return send(record).get();
         } catch(Exception e) {
             if(e.getCause()!=null && e.getCause() instanceof KafkaProducerException) {
                 // The KafkaProducerException wraps the underlying cause, such as InvalidRequiredAcksException.
@@ -32,4 +55,155 @@ public class KafkaProducer {
             throw e;
         }
     }
+
+    /**
+     * Sends the payload without waiting for the acknowledgement.
+     *
+     * The returned future completes when the broker acknowledges the send, or exceptionally if the send fails.
+     */
+    public CompletableFuture<SendResult> sendMessageAsync(Object payload) {
+        return sendMessageAsync(null, payload);
+    }
+
+    /**
+     * Sends the payload with the given key, which may be null, without waiting for the acknowledgement.
+     *
+     * Records with the same key are sent to the same partition, and with the KEY pool strategy through the same
+     * producer, so keep their order.
+     *
+     * With the spill log enabled a send failing with a retriable error, whether when handed to the producer such as
+     * when its buffer stays full for the spill block timeout, or on delivery timeout, is written to the spill log.  The
+     * returned future then completes exceptionally with a SpilledException rather than the error.
+     */
+    public CompletableFuture<SendResult> sendMessageAsync(String key, Object payload) {
+        final ProducerRecord<String, Object> record = new ProducerRecord<>(properties.getOutboundTopic(), key, payload);
+        if(spillLog.isEmpty()) {
+            return send(record);
+        }
+        final SpillLog spill = spillLog.get();
+        final CompletableFuture<SendResult> future;
+        try {
+            future = send(record);
+        } catch(RuntimeException e) {
+            if(spillIfRetriable(spill, record, e)) {
+                return CompletableFuture.failedFuture(new SpilledException(e));
+            }
+            throw e;
+        }
+        return future.exceptionallyCompose(error -> CompletableFuture.failedFuture(spillIfRetriable(spill, record, error) ? new SpilledException(error) : error));
+    }
+
+    /**
+     * Writes the payload with the given key straight to the spill log without sending it, returning false if the spill
+     * log is disabled or full.
+     */
+    public boolean spill(String key, Object payload) {
+        return spillLog.isPresent() && spillLog.get().append(key, payload);
+    }
+
+    /**
+     * Replays a record read back from the spill log, which is not spilled again if it fails.
+     */
+    public CompletableFuture<SendResult> replay(String key, Object payload) {
+        return send(new ProducerRecord<>(properties.getOutboundTopic(), key, payload));
+    }
+
+    private static boolean spillIfRetriable(SpillLog spill, ProducerRecord<String, Object> record, Throwable error) {
+        return isRetriable(error) && spill.append(record.key(), record.value());
+    }
+
+    /**
+     * Sends the payloads, with the keys at the same position if keyed, in a single transaction through one producer of
+     * the pool, only returning once the transaction is committed.  The returned futures are complete on return.
+     *
+     * Throws if the transaction fails, in which case it is aborted and none of its sends are visible to consumers
+     * reading committed.
+     */
+    public List<CompletableFuture<SendResult>> sendInTransaction(List<String> keys, List<?> payloads) {
+        final KafkaTemplate<String, Object> kafkaTemplate = producerPool.select(null);
+        return kafkaTemplate.executeInTransaction(operations -> {
+            final List<CompletableFuture<SendResult>> futures = new ArrayList<>(payloads.size());
+            for(int i = 0; i < payloads.size(); i++) {
+                final String key = keys != null ? keys.get(i) : null;
+                futures.add(send(operations, new ProducerRecord<>(properties.getOutboundTopic(), key, payloads.get(i))));
+            }
+            return futures;
+        });
+    }
+
+    private CompletableFuture<SendResult> send(ProducerRecord<String, Object> record) {
+        return send(producerPool.select(record.key()), record);
+    }
+
+    /**
+     * Hands the record to the producer, recording the latency and outcome of the send.
+     *
+     * Throws a CircuitBreakerOpenException without sending while the circuit breaker is open.
+     */
+    private CompletableFuture<SendResult> send(KafkaOperations operations, ProducerRecord<String, Object> record) {
+        final long permit = circuitBreaker.acquire();
+        final long startNanos = producerMetrics.sendStarted();
+        final CompletableFuture<SendResult> future;
+        try {
+            future = operations.send(record);
+        } catch(RuntimeException e) {
+            producerMetrics.sendCompleted(startNanos, null, e);
+            circuitBreaker.record(permit, e);
+            throw e;
+        }
+        future.whenComplete((result, error) -> {
+            producerMetrics.sendCompleted(startNanos, result, error);
+            circuitBreaker.record(permit, error);
+        });
+        return future;
+    }
+
+    /**
+     * Sends any records buffered by the producers immediately, blocking until their sends complete.
+     */
+    public void flush() {
+        producerPool.flush();
+    }
+
+    /**
+     * Creates a pipeline for sending a run of messages with up to the configured send window in flight, notifying the
+     * listener of the progress of the sends.  With the adaptive send window enabled the window shrinks as the send
+     * latency or retriable errors rise, growing back when healthy.  With the spill log enabled a send waiting longer
+     * than the spill block timeout for a place in the window is spilled instead.
+     */
+    public SendPipeline pipeline(SendListener listener) {
+        final KafkaDemoProperties.Producer config = properties.getProducer();
+        final SendWindow window = config.isAdaptiveSendWindow()
+                ? new SendWindow(config.getMinSendWindow(), config.getSendWindow(), config.getTargetSendLatencyMs())
+                : new SendWindow(config.getSendWindow());
+        final int transactionBatchSize = config.getMode() == KafkaDemoProperties.ProducerMode.TRANSACTIONAL ? config.getTransactionBatchSize() : 0;
+        final long spillTimeoutNanos = spillLog.isPresent() ? TimeUnit.MILLISECONDS.toNanos(properties.getSpill().getBlockTimeoutMs()) : -1;
+        return new SendPipeline(this, listener, window, transactionBatchSize, spillTimeoutNanos);
+    }
+
+    /**
+     * Whether the failed send has a retriable error as its cause, so may succeed if sent again.
+     */
+    public static boolean isRetriable(Throwable error) {
+        Throwable cause = error;
+        while(cause != null && !(cause instanceof RetriableException)) {
+            cause = cause.getCause();
+        }
+        return cause != null;
+    }
+
+    /**
+     * Unwraps a failed send to the exception thrown to callers of sendMessage.
+     */
+    static Exception unwrap(Throwable error) {
+        Throwable cause = error;
+        if((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if(cause instanceof KafkaProducerException) {
+            // The KafkaProducerException wraps the underlying cause, such as InvalidRequiredAcksException.
+            return new Exception(cause.getCause());
+        }
+        return cause instanceof Exception ? (Exception) cause : new Exception(cause);
+    }
 }
@@ -0,0 +1,145 @@
+package demo.kafka.producer;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RetriableException;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the latency and outcome of each send, published through the actuator metrics endpoint.
+ *
+ * kafka.producer.send.latency: the time from handing a message to the producer to its acknowledgement or failure,
+ * tagged by outcome, with a percentile histogram and the p50, p95 and p99 published.
+ *
+ * kafka.producer.send.outcome: the count of sends by outcome, exception type, and whether the exception is retryable.
+ *
+ * kafka.producer.send.in.flight: the number of sends handed to the producer awaiting completion.
+ *
+ * kafka.producer.send.partition: the count of sends acknowledged by each partition, tagged by topic and partition.
+ *
+ * The latency of every acknowledged send is also recorded in an HdrHistogram, reported by the latency endpoint, that
+ * can be reset between runs.
+ */
+@Component
+public class ProducerMetrics {
+
+    static final String LATENCY = "kafka.producer.send.latency";
+    static final String OUTCOME = "kafka.producer.send.outcome";
+    static final String IN_FLIGHT = "kafka.producer.send.in.flight";
+    static final String PARTITION = "kafka.producer.send.partition";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer successLatency;
+
+    private final Timer failureLatency;
+
+    private final Counter successCount;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final SendLatencyRecorder sendLatency = new SendLatencyRecorder();
+
+    private final ConcurrentMap<TopicPartition, Counter> partitionCounts = new ConcurrentHashMap<>();
+
+    public ProducerMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.successLatency = latencyTimer("success");
+        this.failureLatency = latencyTimer("failure");
+        this.successCount = outcomeCounter("success", "none", "none");
+        Gauge.builder(IN_FLIGHT, inFlight, AtomicInteger::get)
+                .description("Sends awaiting acknowledgement")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records a message being handed to the producer, returning the start time to pass on completion.
+     */
+    public long sendStarted() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the completion of a send, with the error if the send failed.
+     */
+    public void sendCompleted(long startNanos, SendResult result, Throwable error) {
+        final long latencyNanos = System.nanoTime() - startNanos;
+        inFlight.decrementAndGet();
+        if(error == null) {
+            successLatency.record(latencyNanos, TimeUnit.NANOSECONDS);
+            sendLatency.record(latencyNanos);
+            successCount.increment();
+            if(result != null && result.getRecordMetadata() != null) {
+                final RecordMetadata metadata = result.getRecordMetadata();
+                partitionCounts.computeIfAbsent(new TopicPartition(metadata.topic(), metadata.partition()), this::partitionCounter).increment();
+            }
+        } else {
+            failureLatency.record(latencyNanos, TimeUnit.NANOSECONDS);
+            final Throwable cause = rootCause(error);
+            outcomeCounter("failure", cause.getClass().getSimpleName(), String.valueOf(cause instanceof RetriableException)).increment();
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * The latencies of the sends acknowledged since startup or the last reset.
+     */
+    public SendLatencyRecorder getSendLatency() {
+        return sendLatency;
+    }
+
+    private Timer latencyTimer(String outcome) {
+        return Timer.builder(LATENCY)
+                .description("Time from send to acknowledgement or failure")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Counter partitionCounter(TopicPartition topicPartition) {
+        return Counter.builder(PARTITION)
+                .description("Sends acknowledged by partition")
+                .tag("topic", topicPartition.topic())
+                .tag("partition", String.valueOf(topicPartition.partition()))
+                .register(meterRegistry);
+    }
+
+    private Counter outcomeCounter(String outcome, String exception, String retryable) {
+        return Counter.builder(OUTCOME)
+                .description("Sends by outcome")
+                .tag("outcome", outcome)
+                .tag("exception", exception)
+                .tag("retryable", retryable)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The Kafka client exception behind the failed send, unwrapped from the KafkaProducerException.
+     */
+    private static Throwable rootCause(Throwable error) {
+        Throwable cause = error;
+        while((cause instanceof KafkaProducerException || cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
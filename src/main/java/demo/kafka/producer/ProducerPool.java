@@ -0,0 +1,87 @@
+package demo.kafka.producer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import demo.kafka.properties.KafkaDemoProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+/**
+ * A pool of producers, each with its own sender thread and buffer, that the sends are spread across.
+ *
+ * With the ROUND_ROBIN strategy each send goes to the next producer in turn.  With the KEY strategy sends are striped by
+ * a hash of their key, so all sends for a key go through the same producer, preserving their order.  Sends without a
+ * key are spread round robin.
+ *
+ * The number of sends through each producer is published as kafka.producer.pool.sends, tagged by producer.
+ */
+public class ProducerPool implements DisposableBean {
+
+    static final String POOL_SENDS = "kafka.producer.pool.sends";
+
+    private final List<KafkaTemplate<String, Object>> kafkaTemplates;
+
+    private final List<Counter> sends = new ArrayList<>();
+
+    private final KafkaDemoProperties.PoolStrategy strategy;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ProducerPool(List<KafkaTemplate<String, Object>> kafkaTemplates, KafkaDemoProperties.PoolStrategy strategy, MeterRegistry meterRegistry) {
+        this.kafkaTemplates = List.copyOf(kafkaTemplates);
+        this.strategy = strategy;
+        for(int i = 0; i < kafkaTemplates.size(); i++) {
+            sends.add(Counter.builder(POOL_SENDS)
+                    .description("Sends through each producer in the pool")
+                    .tag("producer", String.valueOf(i))
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Selects the producer to send the record with the given key, which may be null.
+     */
+    public KafkaTemplate<String, Object> select(String key) {
+        final int index;
+        if(kafkaTemplates.size() == 1) {
+            index = 0;
+        } else if(strategy == KafkaDemoProperties.PoolStrategy.KEY && key != null) {
+            index = Utils.toPositive(Utils.murmur2(key.getBytes(StandardCharsets.UTF_8))) % kafkaTemplates.size();
+        } else {
+            index = Math.floorMod(next.getAndIncrement(), kafkaTemplates.size());
+        }
+        sends.get(index).increment();
+        return kafkaTemplates.get(index);
+    }
+
+    /**
+     * Flushes every producer in the pool.
+     */
+    public void flush() {
+        kafkaTemplates.forEach(KafkaTemplate::flush);
+    }
+
+    public int size() {
+        return kafkaTemplates.size();
+    }
+
+    /**
+     * Closes the producers of the pool, including those whose factories are not beans managed by Spring.
+     */
+    @Override
+    public void destroy() throws Exception {
+        for(KafkaTemplate<String, Object> kafkaTemplate : kafkaTemplates) {
+            final ProducerFactory<String, Object> producerFactory = kafkaTemplate.getProducerFactory();
+            if(producerFactory instanceof DisposableBean disposable) {
+                disposable.destroy();
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package demo.kafka.producer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+
+import demo.kafka.rest.api.LatencyReport;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import org.HdrHistogram.PackedHistogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Records latencies in an HdrHistogram, in microseconds up to an hour, to 3 significant digits.
+ *
+ * Recording is wait free, through an HdrHistogram Recorder, so it is made from the producer's network thread.  The
+ * histograms are packed, so their memory grows with the number of distinct latencies recorded rather than being sized
+ * up front for the full range.
+ *
+ * When the sends are paced at a known rate their latencies are measured from each send's intended time by the pacing
+ * schedule, rather than from when it was actually made, so are corrected for coordinated omission.  A sender held up
+ * by a slow send makes the sends it was due to make meanwhile late, with that delay counted in their latency.
+ *
+ * A histogram is serialized as base64 of its compressed form, so that histograms of separate runs or instances can be
+ * merged and compared.
+ */
+public class SendLatencyRecorder {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    /**
+     * The upper bound of the first bucket reported, with each further bucket doubling it.
+     */
+    private static final long FIRST_BUCKET_MICROS = 100;
+
+    private final boolean correctedForCoordinatedOmission;
+
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS, true);
+
+    private final Histogram total = new PackedHistogram(SIGNIFICANT_DIGITS);
+
+    private Histogram interval;
+
+    /**
+     * A recorder of latencies measured from when each send was made.
+     */
+    public SendLatencyRecorder() {
+        this(false);
+    }
+
+    /**
+     * A recorder of latencies measured from each send's intended time if corrected for coordinated omission, otherwise
+     * from when each send was made.
+     */
+    public SendLatencyRecorder(boolean correctedForCoordinatedOmission) {
+        this.correctedForCoordinatedOmission = correctedForCoordinatedOmission;
+    }
+
+    public void record(long latencyNanos) {
+        recorder.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos))));
+    }
+
+    /**
+     * A copy of the latencies recorded since creation or the last reset.
+     */
+    public synchronized Histogram getHistogram() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        return total.copy();
+    }
+
+    public synchronized void reset() {
+        recorder.reset();
+        total.reset();
+    }
+
+    public LatencyReport toReport() {
+        final LatencyReport report = toReport(getHistogram());
+        report.setCorrectedForCoordinatedOmission(correctedForCoordinatedOmission);
+        return report;
+    }
+
+    /**
+     * Reports the distribution of the latencies in the histogram, with its serialized form.
+     */
+    public static LatencyReport toReport(Histogram histogram) {
+        final long count = histogram.getTotalCount();
+        final List<LatencyReport.Bucket> buckets = new ArrayList<>();
+        if(count > 0) {
+            for(HistogramIterationValue bucket : histogram.logarithmicBucketValues(FIRST_BUCKET_MICROS, 2)) {
+                if(bucket.getCountAddedInThisIterationStep() > 0) {
+                    buckets.add(new LatencyReport.Bucket(millis(bucket.getValueIteratedTo()), bucket.getCountAddedInThisIterationStep()));
+                }
+            }
+        }
+        return LatencyReport.builder()
+                .count(count)
+                .minMs(count > 0 ? millis(histogram.getMinValue()) : 0d)
+                .meanMs(count > 0 ? histogram.getMean() / 1000d : 0d)
+                .p50Ms(millis(histogram.getValueAtPercentile(50)))
+                .p90Ms(millis(histogram.getValueAtPercentile(90)))
+                .p99Ms(millis(histogram.getValueAtPercentile(99)))
+                .p999Ms(millis(histogram.getValueAtPercentile(99.9)))
+                .maxMs(millis(histogram.getMaxValue()))
+                .buckets(buckets)
+                .histogram(encode(histogram))
+                .build();
+    }
+
+    /**
+     * Serializes the histogram as base64 of its compressed form.
+     */
+    public static String encode(Histogram histogram) {
+        final ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        final int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    /**
+     * Deserializes a histogram serialized by encode, throwing an IllegalArgumentException if it is not valid.
+     */
+    public static Histogram decode(String encoded) {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder().decode(encoded)), 0);
+        } catch(DataFormatException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid histogram: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Merges the serialized histograms into one.
+     */
+    public static Histogram merge(List<String> encoded) {
+        final Histogram merged = new PackedHistogram(SIGNIFICANT_DIGITS);
+        for(String histogram : encoded) {
+            merged.add(decode(histogram));
+        }
+        return merged;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000d;
+    }
+}
@@ -0,0 +1,45 @@
+package demo.kafka.producer;
+
+import org.springframework.kafka.support.SendResult;
+
+/**
+ * Notified of the progress of the sends made through a send pipeline.
+ *
+ * The acknowledged and failed notifications are made on the producer's network thread, so must not block.
+ */
+public interface SendListener {
+
+    SendListener NONE = new SendListener() {};
+
+    /**
+     * A message has been handed to the producer.
+     */
+    default void onSent() {}
+
+    /**
+     * A message has been acknowledged by the broker.
+     */
+    default void onAcknowledged(SendResult result) {}
+
+    /**
+     * The latency of an acknowledged message, from its intended send time if it has one, otherwise from it being
+     * handed to the producer.
+     */
+    default void onLatency(long latencyNanos) {}
+
+    /**
+     * A message send has failed.
+     */
+    default void onFailed(Throwable error) {}
+
+    /**
+     * A message send has failed with a retriable error and been written to the spill log, to be replayed once the
+     * broker recovers.
+     */
+    default void onSpilled() {}
+
+    /**
+     * A transaction of sends has been committed.
+     */
+    default void onTransactionCommitted() {}
+}
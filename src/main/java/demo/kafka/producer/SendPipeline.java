@@ -0,0 +1,259 @@
+package demo.kafka.producer;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.springframework.kafka.support.SendResult;
+
+/**
+ * Sends messages without waiting for each acknowledgement in turn, keeping at most a bounded window of sends in flight.
+ * The window is either fixed, or adapts to the latency and errors of the sends.
+ *
+ * In the TRANSACTIONAL mode each batch is instead sent in transactions of the transaction batch size, each waiting on
+ * its commit, so the window is not used.
+ *
+ * The latency of each send is measured to its acknowledgement from its intended send time if given, such as by the
+ * schedule of a paced sender, otherwise from it being handed to the producer.  A send in a transaction is only visible
+ * once the transaction commits, so its latency is measured to the commit.
+ *
+ * A send written to the spill log is not a failure, with the listener notified that it was spilled instead.  With a
+ * spill timeout, a send that cannot take a place in the window within the timeout is written straight to the spill log,
+ * as are the sends following it until a place frees up, rather than blocking the sender through a broker outage.
+ *
+ * The first failed send is recorded and thrown to the caller on its next send, or when awaiting completion, in the same
+ * unwrapped form that KafkaProducer.sendMessage throws.
+ *
+ * A pipeline is intended to be used by a single sending thread.
+ */
+@Slf4j
+public class SendPipeline {
+
+    private final KafkaProducer kafkaProducer;
+
+    private final SendListener listener;
+
+    private final SendWindow window;
+
+    private final int transactionBatchSize;
+
+    private final long spillTimeoutNanos;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private boolean windowFull;
+
+    public SendPipeline(KafkaProducer kafkaProducer, SendListener listener, int windowSize) {
+        this(kafkaProducer, listener, new SendWindow(windowSize));
+    }
+
+    public SendPipeline(KafkaProducer kafkaProducer, SendListener listener, SendWindow window) {
+        this(kafkaProducer, listener, window, 0);
+    }
+
+    /**
+     * A pipeline sending each batch in transactions of the transaction batch size, or without transactions if 0.
+     */
+    public SendPipeline(KafkaProducer kafkaProducer, SendListener listener, SendWindow window, int transactionBatchSize) {
+        this(kafkaProducer, listener, window, transactionBatchSize, -1);
+    }
+
+    /**
+     * A pipeline spilling the sends that wait longer than the spill timeout for a place in the window, or never
+     * spilling them if negative.
+     */
+    public SendPipeline(KafkaProducer kafkaProducer, SendListener listener, SendWindow window, int transactionBatchSize, long spillTimeoutNanos) {
+        this.kafkaProducer = kafkaProducer;
+        this.listener = listener;
+        this.window = window;
+        this.transactionBatchSize = transactionBatchSize;
+        this.spillTimeoutNanos = spillTimeoutNanos;
+    }
+
+    /**
+     * Hands the payload to the producer, blocking only while the window of in flight sends is full.
+     */
+    public CompletableFuture<SendResult> send(Object payload) throws Exception {
+        return send(null, payload);
+    }
+
+    /**
+     * Hands the payload with the given key, which may be null, to the producer, blocking only while the window of in
+     * flight sends is full.
+     */
+    public CompletableFuture<SendResult> send(String key, Object payload) throws Exception {
+        return send(key, payload, false, 0);
+    }
+
+    /**
+     * Hands the payload with the given key, which may be null, to the producer, blocking only while the window of in
+     * flight sends is full, with its latency measured from the intended send time.
+     */
+    public CompletableFuture<SendResult> send(String key, Object payload, long intendedNanos) throws Exception {
+        return send(key, payload, true, intendedNanos);
+    }
+
+    private CompletableFuture<SendResult> send(String key, Object payload, boolean scheduled, long intendedNanos) throws Exception {
+        throwIfFailed();
+        if(!acquireWindow()) {
+            final SpilledException spilled = new SpilledException(new TimeoutException("Send window full for " + TimeUnit.NANOSECONDS.toMillis(spillTimeoutNanos) + " ms"));
+            if(kafkaProducer.spill(key, payload)) {
+                listener.onSent();
+                listener.onSpilled();
+                return CompletableFuture.failedFuture(spilled);
+            }
+            // The spill log is full, so the send waits on the window as it would without spilling.
+            window.acquire();
+        }
+        final long startNanos = System.nanoTime();
+        final CompletableFuture<SendResult> future;
+        try {
+            future = kafkaProducer.sendMessageAsync(key, payload);
+        } catch(Exception e) {
+            window.release(System.nanoTime() - startNanos, e);
+            throw e;
+        }
+        listener.onSent();
+        future.whenComplete((result, error) -> {
+            if(error instanceof SpilledException || (error != null && error.getCause() instanceof SpilledException)) {
+                listener.onSpilled();
+            } else if(error != null) {
+                listener.onFailed(error);
+                if(failure.compareAndSet(null, error)) {
+                    log.error("Send failed: {}", error.getMessage());
+                }
+            } else {
+                listener.onAcknowledged(result);
+                listener.onLatency(System.nanoTime() - (scheduled ? intendedNanos : startNanos));
+            }
+            window.release(System.nanoTime() - startNanos, error);
+        });
+        return future;
+    }
+
+    /**
+     * Takes a place in the window, blocking while it is full, or without a spill timeout.  Otherwise returns false once
+     * the window has stayed full for the spill timeout, and immediately while it remains full after that.
+     */
+    private boolean acquireWindow() throws InterruptedException {
+        if(spillTimeoutNanos < 0) {
+            window.acquire();
+            return true;
+        }
+        windowFull = !window.tryAcquire(windowFull ? 0 : spillTimeoutNanos);
+        return !windowFull;
+    }
+
+    /**
+     * Hands each payload in the batch to the producer in turn.
+     */
+    public void sendBatch(List<?> payloads) throws Exception {
+        sendBatch(null, payloads, null);
+    }
+
+    /**
+     * Hands each payload in the batch to the producer in turn, with the key at the same position in the keys.
+     */
+    public void sendBatch(List<String> keys, List<?> payloads) throws Exception {
+        sendBatch(keys, payloads, null);
+    }
+
+    /**
+     * Hands each payload in the batch to the producer in turn, with the key at the same position in the keys if keyed,
+     * and its latency measured from the intended send time at the same position in the intended send times if given.
+     */
+    public void sendBatch(List<String> keys, List<?> payloads, long[] intendedNanos) throws Exception {
+        if(transactionBatchSize > 0) {
+            sendInTransactions(keys, payloads, intendedNanos);
+            return;
+        }
+        for(int i = 0; i < payloads.size(); i++) {
+            final String key = keys != null ? keys.get(i) : null;
+            if(intendedNanos != null) {
+                send(key, payloads.get(i), intendedNanos[i]);
+            } else {
+                send(key, payloads.get(i));
+            }
+        }
+    }
+
+    private void sendInTransactions(List<String> keys, List<?> payloads, long[] intendedNanos) throws Exception {
+        final long handedNanos = System.nanoTime();
+        for(int start = 0; start < payloads.size(); start += transactionBatchSize) {
+            final int end = Math.min(start + transactionBatchSize, payloads.size());
+            sendInTransaction(keys != null ? keys.subList(start, end) : null, payloads.subList(start, end), intendedNanos, start, handedNanos);
+        }
+    }
+
+    /**
+     * Sends the payloads in a single transaction, waiting on its commit.  If the transaction fails every send in it
+     * has failed, as the transaction is aborted.
+     *
+     * The latency of each send is measured to the commit, from its intended send time at its position from the offset
+     * in the intended send times if given, otherwise from the batch being handed to the pipeline.
+     */
+    private void sendInTransaction(List<String> keys, List<?> payloads, long[] intendedNanos, int offset, long handedNanos) throws Exception {
+        throwIfFailed();
+        payloads.forEach(payload -> listener.onSent());
+        final List<CompletableFuture<SendResult>> futures;
+        try {
+            futures = kafkaProducer.sendInTransaction(keys, payloads);
+        } catch(Exception e) {
+            payloads.forEach(payload -> listener.onFailed(e));
+            if(failure.compareAndSet(null, e)) {
+                log.error("Transaction failed: {}", e.getMessage());
+            }
+            throw KafkaProducer.unwrap(e);
+        }
+        final long committedNanos = System.nanoTime();
+        for(int i = 0; i < futures.size(); i++) {
+            final long fromNanos = intendedNanos != null ? intendedNanos[offset + i] : handedNanos;
+            futures.get(i).whenComplete((result, error) -> {
+                if(error != null) {
+                    listener.onFailed(error);
+                } else {
+                    listener.onAcknowledged(result);
+                    listener.onLatency(committedNanos - fromNanos);
+                }
+            });
+        }
+        listener.onTransactionCommitted();
+    }
+
+    /**
+     * Flushes the producer so that the sends buffered are made immediately, throwing the first failure if any send
+     * failed.
+     */
+    public void flush() throws Exception {
+        if(transactionBatchSize == 0) {
+            // Each transaction is flushed on commit.
+            kafkaProducer.flush();
+        }
+        throwIfFailed();
+    }
+
+    /**
+     * Waits for every send in flight to be acknowledged, throwing the first failure if any send failed.
+     */
+    public void awaitCompletion() throws Exception {
+        window.awaitEmpty();
+        throwIfFailed();
+    }
+
+    /**
+     * The number of sends handed to the producer that have not yet completed.
+     */
+    public int inFlight() {
+        return window.inFlight();
+    }
+
+    private void throwIfFailed() throws Exception {
+        final Throwable error = failure.get();
+        if(error != null) {
+            throw KafkaProducer.unwrap(error);
+        }
+    }
+}
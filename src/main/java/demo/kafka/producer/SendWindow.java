@@ -0,0 +1,158 @@
+package demo.kafka.producer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounds the number of sends in flight.
+ *
+ * A fixed window keeps the limit at its maximum size.  An adaptive window applies additive increase, multiplicative
+ * decrease to the limit: each send acknowledged within the target latency grows the limit by 1/limit, so by one per
+ * window of healthy sends, while each send slower than the target latency, or failing with a retriable error, shrinks
+ * the limit by the backoff ratio, down to the minimum size.  As broker latency or errors rise the sends are held back
+ * in the caller rather than queueing in the producer buffer until the delivery timeout expires.
+ */
+@Slf4j
+public class SendWindow {
+
+    static final double BACKOFF_RATIO = 0.9;
+
+    private final int minSize;
+
+    private final int maxSize;
+
+    private final long targetLatencyNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition changed = lock.newCondition();
+
+    private double limit;
+
+    private int inFlight;
+
+    /**
+     * A fixed window of the given size.
+     */
+    public SendWindow(int size) {
+        this(size, size, 0);
+    }
+
+    /**
+     * An adaptive window, starting at the maximum size, and adjusting by the latency of each send against the target.
+     */
+    public SendWindow(int minSize, int maxSize, long targetLatencyMs) {
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        this.limit = maxSize;
+    }
+
+    /**
+     * Takes a place in the window, blocking while the window is full.
+     */
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while(inFlight >= (int) limit) {
+                changed.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a place in the window, blocking while the window is full for at most the timeout.  Returns whether a place
+     * was taken.
+     */
+    public boolean tryAcquire(long timeoutNanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            long remainingNanos = timeoutNanos;
+            while(inFlight >= (int) limit) {
+                if(remainingNanos <= 0) {
+                    return false;
+                }
+                remainingNanos = changed.awaitNanos(remainingNanos);
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a place in the window on completion of a send, adjusting the limit of an adaptive window by its latency
+     * and outcome.
+     */
+    public void release(long latencyNanos, Throwable error) {
+        lock.lock();
+        try {
+            if(isAdaptive()) {
+                adjust(latencyNanos, error);
+            }
+            inFlight--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until there are no sends in flight.
+     */
+    public void awaitEmpty() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while(inFlight > 0) {
+                changed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The current limit on the number of sends in flight.
+     */
+    public int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isAdaptive() {
+        return minSize < maxSize;
+    }
+
+    private void adjust(long latencyNanos, Throwable error) {
+        final int previous = (int) limit;
+        if(latencyNanos > targetLatencyNanos || KafkaProducer.isRetriable(error)) {
+            limit = Math.max(minSize, limit * BACKOFF_RATIO);
+        } else if(error == null && inFlight * 2 >= limit) {
+            // Only grow when the window is in use, so a lightly loaded window does not grow unbounded by the load.
+            limit = Math.min(maxSize, limit + 1 / limit);
+        }
+        if((int) limit != previous) {
+            log.debug("Send window limit: {} -> {}", previous, (int) limit);
+        }
+    }
+}
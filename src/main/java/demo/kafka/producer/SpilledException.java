@@ -0,0 +1,12 @@
+package demo.kafka.producer;
+
+/**
+ * Completes a send that failed with a retriable error and was written to the spill log, to be replayed once the broker
+ * recovers, so is not a failure of the job.
+ */
+public class SpilledException extends RuntimeException {
+
+    public SpilledException(Throwable cause) {
+        super("Send spilled to disk: " + cause.getMessage(), cause);
+    }
+}
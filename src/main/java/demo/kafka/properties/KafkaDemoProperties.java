@@ -1,19 +1,372 @@
 package demo.kafka.properties;
 
-import javax.validation.constraints.NotNull;
+import java.util.Set;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.validation.annotation.Validated;
 
 @Configuration
 @ConfigurationProperties("kafka")
 @Getter
 @Setter
-@Validated
-public class KafkaDemoProperties {
-    @NotNull
+public class KafkaDemoProperties implements InitializingBean {
     private String outboundTopic;
+
+    private Producer producer = new Producer();
+
+    private Spill spill = new Spill();
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * Validates the configuration on startup, failing with the invalid setting.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if(outboundTopic == null || outboundTopic.isBlank()) {
+            throw new IllegalStateException("Invalid kafka config: outboundTopic must be set");
+        }
+        producer.validate();
+        spill.validate();
+        circuitBreaker.validate();
+    }
+
+    @Getter
+    @Setter
+    public static class Producer {
+        private static final Set<String> COMPRESSION_TYPES = Set.of("none", "gzip", "snappy", "lz4", "zstd");
+        private static final Set<String> ACKS = Set.of("all", "-1", "0", "1");
+
+        // The Kafka client defaults, used to validate settings that are left unset.
+        private static final int DEFAULT_DELIVERY_TIMEOUT_MS = 120000;
+        private static final int DEFAULT_REQUEST_TIMEOUT_MS = 30000;
+        private static final int DEFAULT_LINGER_MS = 0;
+
+        /**
+         * The producer retries.
+         */
+        private Integer retries = Integer.MAX_VALUE;
+
+        /**
+         * The upper bound on the time to report success or failure of a send.  Must be at least linger.ms plus
+         * request.timeout.ms.
+         */
+        private Integer deliveryTimeoutMs = DEFAULT_DELIVERY_TIMEOUT_MS;
+
+        /**
+         * The maximum time to wait for the response to a request.
+         */
+        private Integer requestTimeoutMs = DEFAULT_REQUEST_TIMEOUT_MS;
+
+        /**
+         * The time to wait for further records to add to a batch before sending.
+         */
+        private Integer lingerMs = DEFAULT_LINGER_MS;
+
+        /**
+         * The compression applied to each batch: none, gzip, snappy, lz4 or zstd.  The client default when unset.
+         */
+        private String compressionType;
+
+        /**
+         * The maximum size in bytes of a batch of records sent to a partition.  The client default when unset.
+         */
+        private Integer batchSize;
+
+        /**
+         * The total bytes of memory the producer can use to buffer records awaiting send.  The client default when
+         * unset.
+         */
+        private Long bufferMemory;
+
+        /**
+         * The maximum number of unacknowledged requests per connection.  The client default when unset.
+         */
+        private Integer maxInFlightRequestsPerConnection;
+
+        /**
+         * The acknowledgements required from the broker: all (or -1), 0 or 1.  The client default when unset.
+         */
+        private String acks;
+
+        /**
+         * The delivery guarantee of the producer: plain, idempotent, or transactional.
+         */
+        private ProducerMode mode = ProducerMode.IDEMPOTENT;
+
+        /**
+         * The number of events sent in each transaction in the TRANSACTIONAL mode.
+         */
+        private Integer transactionBatchSize = 100;
+
+        /**
+         * The prefix of the transactional.id of each producer in the TRANSACTIONAL mode, followed by the producer's
+         * index in the pool.  Must be unique to each instance of the application.
+         */
+        private String transactionIdPrefix = "kafka-demo-tx-";
+
+        /**
+         * The maximum number of sends awaiting acknowledgement at any one time.  A window of 1 waits for each send to
+         * be acknowledged before the next is sent.
+         */
+        private Integer sendWindow = 100;
+
+        /**
+         * Whether the send window adapts to the latency and errors of the sends, shrinking towards the minimum send
+         * window as they rise, and growing back to the send window when healthy.
+         */
+        private boolean adaptiveSendWindow = false;
+
+        /**
+         * The smallest the adaptive send window shrinks to.
+         */
+        private Integer minSendWindow = 1;
+
+        /**
+         * The send latency above which the adaptive send window shrinks.
+         */
+        private Integer targetSendLatencyMs = 500;
+
+        /**
+         * The number of events generated and handed to the producer as one batch.
+         */
+        private Integer eventBatchSize = 500;
+
+        /**
+         * The maximum time to spend filling a batch of events before handing it to the producer, even if not full.  0
+         * waits for the batch to fill.
+         */
+        private Integer eventBatchLingerMs = 100;
+
+        /**
+         * Whether the producer is flushed at each batch boundary.  The producers are shared, so flushing also waits on
+         * the sends of any other job running at the time.
+         */
+        private FlushPolicy flushPolicy = FlushPolicy.NONE;
+
+        /**
+         * The serializer used for the event payloads.
+         */
+        private ValueSerializer valueSerializer = ValueSerializer.JSON;
+
+        /**
+         * The number of producers, each with its own sender thread and buffer, that the sends are spread across.
+         */
+        private Integer poolSize = 1;
+
+        /**
+         * How the sends are spread across the pool of producers.
+         */
+        private PoolStrategy poolStrategy = PoolStrategy.ROUND_ROBIN;
+
+        void validate() {
+            require(retries != null && retries >= 0, "retries must be 0 or more");
+            require(lingerMs != null && lingerMs >= 0, "lingerMs must be 0 or more");
+            require(requestTimeoutMs != null && requestTimeoutMs > 0, "requestTimeoutMs must be greater than 0");
+            require(deliveryTimeoutMs != null && (long) deliveryTimeoutMs >= (long) lingerMs + requestTimeoutMs,
+                    "deliveryTimeoutMs (" + deliveryTimeoutMs + ") must be equal to or larger than lingerMs (" + lingerMs + ") + requestTimeoutMs (" + requestTimeoutMs + ")");
+            require(compressionType == null || COMPRESSION_TYPES.contains(compressionType), "compressionType must be one of " + COMPRESSION_TYPES);
+            require(batchSize == null || batchSize >= 0, "batchSize must be 0 or more");
+            require(bufferMemory == null || bufferMemory > 0, "bufferMemory must be greater than 0");
+            require(maxInFlightRequestsPerConnection == null || maxInFlightRequestsPerConnection >= 1, "maxInFlightRequestsPerConnection must be 1 or more");
+            require(acks == null || ACKS.contains(acks), "acks must be one of " + ACKS);
+            require(mode != null, "mode must be set");
+            if(mode != ProducerMode.PLAIN) {
+                require(acks == null || acks.equals("all") || acks.equals("-1"), "acks must be all when mode is " + mode);
+                require(retries > 0, "retries must be greater than 0 when mode is " + mode);
+                require(maxInFlightRequestsPerConnection == null || maxInFlightRequestsPerConnection <= 5, "maxInFlightRequestsPerConnection must be 5 or less when mode is " + mode);
+            }
+            if(mode == ProducerMode.TRANSACTIONAL) {
+                require(transactionBatchSize != null && transactionBatchSize >= 1, "transactionBatchSize must be 1 or more");
+                require(transactionIdPrefix != null && !transactionIdPrefix.isBlank(), "transactionIdPrefix must be set when mode is TRANSACTIONAL");
+            }
+            require(sendWindow != null && sendWindow >= 1, "sendWindow must be 1 or more");
+            require(minSendWindow != null && minSendWindow >= 1, "minSendWindow must be 1 or more");
+            require(targetSendLatencyMs != null && targetSendLatencyMs >= 1, "targetSendLatencyMs must be 1 or more");
+            if(adaptiveSendWindow) {
+                require(minSendWindow <= sendWindow, "minSendWindow (" + minSendWindow + ") must not be larger than sendWindow (" + sendWindow + ")");
+            }
+            require(eventBatchSize != null && eventBatchSize >= 1, "eventBatchSize must be 1 or more");
+            require(eventBatchLingerMs != null && eventBatchLingerMs >= 0, "eventBatchLingerMs must be 0 or more");
+            require(poolSize != null && poolSize >= 1, "poolSize must be 1 or more");
+        }
+
+        private static void require(boolean valid, String message) {
+            if(!valid) {
+                throw new IllegalStateException("Invalid kafka.producer config: " + message);
+            }
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Spill {
+
+        /**
+         * Whether sends failing with a retriable error, such as a delivery timeout or a full producer buffer, are
+         * written to the spill log on local disk and replayed once the broker recovers, rather than failing the job.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The directory holding the spill log segment files.
+         */
+        private String directory = "spill";
+
+        /**
+         * The size in bytes of each memory-mapped segment file of the spill log.
+         */
+        private Integer segmentBytes = 16 * 1024 * 1024;
+
+        /**
+         * The maximum bytes of disk the spill log uses, with further records rejected and failing as before once full.
+         */
+        private Long maxBytes = 1024L * 1024 * 1024;
+
+        /**
+         * The longest a send waits for room, whether in the send window or in the producer buffer, before it is spilled
+         * rather than blocking the sender.  Applied as the producer max.block.ms.
+         */
+        private Integer blockTimeoutMs = 1000;
+
+        /**
+         * The interval at which the spill log is replayed while it holds records.
+         */
+        private Integer drainIntervalMs = 1000;
+
+        /**
+         * The maximum number of spilled records replayed at once, each replay awaiting their acknowledgement.
+         */
+        private Integer drainBatchSize = 500;
+
+        void validate() {
+            if(!enabled) {
+                return;
+            }
+            require(directory != null && !directory.isBlank(), "directory must be set when enabled");
+            require(segmentBytes != null && segmentBytes >= 1024, "segmentBytes must be 1024 or more");
+            require(maxBytes != null && maxBytes >= segmentBytes,
+                    "maxBytes (" + maxBytes + ") must not be smaller than segmentBytes (" + segmentBytes + ")");
+            require(blockTimeoutMs != null && blockTimeoutMs >= 0, "blockTimeoutMs must be 0 or more");
+            require(drainIntervalMs != null && drainIntervalMs >= 1, "drainIntervalMs must be 1 or more");
+            require(drainBatchSize != null && drainBatchSize >= 1, "drainBatchSize must be 1 or more");
+        }
+
+        private static void require(boolean valid, String message) {
+            if(!valid) {
+                throw new IllegalStateException("Invalid kafka.spill config: " + message);
+            }
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+
+        /**
+         * Whether sends fail fast once the broker is rejecting them with non-retriable errors.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The number of most recent sends the failure rate is calculated over.
+         */
+        private Integer slidingWindowSize = 100;
+
+        /**
+         * The number of sends that must be recorded before the failure rate can open the breaker.
+         */
+        private Integer minimumSends = 20;
+
+        /**
+         * The percentage of sends failing with a non-retriable error at which the breaker opens.
+         */
+        private Integer failureRateThreshold = 50;
+
+        /**
+         * The time the breaker stays open, rejecting sends, before letting probe sends through.
+         */
+        private Integer openDurationMs = 10000;
+
+        /**
+         * The number of probe sends let through when half open, each of which must succeed for the breaker to close.
+         */
+        private Integer probes = 5;
+
+        void validate() {
+            if(!enabled) {
+                return;
+            }
+            require(slidingWindowSize != null && slidingWindowSize >= 1, "slidingWindowSize must be 1 or more");
+            require(minimumSends != null && minimumSends >= 1 && minimumSends <= slidingWindowSize,
+                    "minimumSends (" + minimumSends + ") must be between 1 and slidingWindowSize (" + slidingWindowSize + ")");
+            require(failureRateThreshold != null && failureRateThreshold >= 1 && failureRateThreshold <= 100, "failureRateThreshold must be between 1 and 100");
+            require(openDurationMs != null && openDurationMs >= 1, "openDurationMs must be 1 or more");
+            require(probes != null && probes >= 1, "probes must be 1 or more");
+        }
+
+        private static void require(boolean valid, String message) {
+            if(!valid) {
+                throw new IllegalStateException("Invalid kafka.circuitBreaker config: " + message);
+            }
+        }
+    }
+
+    public enum ProducerMode {
+        /**
+         * Retries may write duplicates, and may reorder sends when more than one request is in flight.
+         */
+        PLAIN,
+
+        /**
+         * The broker discards duplicates written by retries, keeping the order per partition.
+         */
+        IDEMPOTENT,
+
+        /**
+         * Idempotent, with the events sent in transactions of transactionBatchSize events, so that consumers reading
+         * committed see each transaction's events all or none.
+         */
+        TRANSACTIONAL
+    }
+
+    public enum FlushPolicy {
+        /**
+         * Flush the producer once each batch of events has been handed to it, so the batch is sent without waiting on
+         * linger.ms.  The flush waits on every send buffered in the shared producers, including other jobs' sends.
+         */
+        BATCH,
+
+        /**
+         * Leave the producer to send according to its own batch.size and linger.ms.
+         */
+        NONE
+    }
+
+    public enum ValueSerializer {
+        /**
+         * Spring Kafka's JsonSerializer, serializing through Jackson's ObjectMapper and adding type headers.
+         */
+        JSON,
+
+        /**
+         * The DemoOutboundEventSerializer, writing the event JSON directly without type headers.
+         */
+        EVENT
+    }
+
+    public enum PoolStrategy {
+        /**
+         * Each send goes to the next producer in the pool in turn.
+         */
+        ROUND_ROBIN,
+
+        /**
+         * Sends are striped across the pool by a hash of their key, with sends without a key spread round robin.
+         */
+        KEY
+    }
 }
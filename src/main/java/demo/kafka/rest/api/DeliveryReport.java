@@ -0,0 +1,62 @@
+package demo.kafka.rest.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryReport {
+
+    private String jobId;
+
+    /**
+     * The number of events consumed, including duplicates and invalid events.
+     */
+    private Long received;
+
+    /**
+     * The number of distinct sequence numbers consumed.
+     */
+    private Long unique;
+
+    /**
+     * The number of events consumed whose sequence number had already been consumed.
+     */
+    private Long duplicates;
+
+    /**
+     * The number of sequence numbers below the highest consumed that have not been consumed.
+     */
+    private Long gaps;
+
+    /**
+     * The number of events consumed with a lower sequence number than an earlier event on the same partition.  Only
+     * meaningful for events sent in order by a single sender: the interleaved events of a load scenario with a
+     * concurrency above 1, and spilled events replayed after later ones, are also counted.
+     */
+    private Long reordered;
+
+    /**
+     * The number of events consumed with a sequence number outside the job's range, which are otherwise ignored.
+     */
+    private Long invalid;
+
+    /**
+     * The highest sequence number consumed, or -1 if none.
+     */
+    private Long highestSequence;
+
+    /**
+     * The number of events sent by the job not yet consumed, if the job is known to this instance.
+     */
+    private Long missing;
+
+    /**
+     * The time from each event being sent, as given by its record timestamp, to it being consumed.
+     */
+    private LatencyReport latency;
+}
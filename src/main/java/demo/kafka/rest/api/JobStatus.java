@@ -0,0 +1,56 @@
+package demo.kafka.rest.api;
+
+import java.time.Instant;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobStatus {
+
+    private String jobId;
+
+    private String status;
+
+    private Integer numberOfEvents;
+
+    private Long sent;
+
+    private Long acked;
+
+    private Long failed;
+
+    /**
+     * The number of events written to the spill log, to be replayed once the broker recovers.
+     */
+    private Long spilled;
+
+    private Instant startedAt;
+
+    private Long elapsedMs;
+
+    private Double eventsPerSecond;
+
+    /**
+     * The number of events acknowledged by each partition.
+     */
+    private Map<Integer, Long> partitions;
+
+    /**
+     * The producer mode the job sent with: PLAIN, IDEMPOTENT or TRANSACTIONAL.
+     */
+    private String producerMode;
+
+    /**
+     * The number of transactions committed in the TRANSACTIONAL mode.
+     */
+    private Long transactions;
+
+    private String error;
+}
@@ -0,0 +1,32 @@
+package demo.kafka.rest.api;
+
+/**
+ * How the key of each event sent is chosen.
+ */
+public enum KeyStrategy {
+    /**
+     * No key, leaving the partitioning to the sticky partitioner.
+     */
+    NONE,
+
+    /**
+     * A random key per event, spreading the events evenly across the partitions with no ordering between them.
+     */
+    RANDOM,
+
+    /**
+     * The sequence number of the event within the job.
+     */
+    SEQUENCE,
+
+    /**
+     * A hash of the event name.
+     */
+    NAME_HASH,
+
+    /**
+     * One of a fixed set of numberOfKeys keys chosen at random, so that all events for a key go to one partition in
+     * order.  Few keys concentrate the load on few partitions.
+     */
+    FIXED
+}
@@ -0,0 +1,67 @@
+package demo.kafka.rest.api;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The distribution of the send to acknowledgement latencies, in milliseconds.
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencyReport {
+
+    private Long count;
+
+    private Double minMs;
+
+    private Double meanMs;
+
+    private Double p50Ms;
+
+    private Double p90Ms;
+
+    private Double p99Ms;
+
+    private Double p999Ms;
+
+    private Double maxMs;
+
+    /**
+     * The count of latencies in each histogram bucket holding any, in order of latency.
+     */
+    private List<Bucket> buckets;
+
+    /**
+     * Whether the latencies were corrected for coordinated omission, present for HdrHistogram recorded latencies.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean correctedForCoordinatedOmission;
+
+    /**
+     * The HdrHistogram of the latencies in microseconds, as base64 of its compressed form, that can be merged with
+     * others.  Present for HdrHistogram recorded latencies.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String histogram;
+
+    @Builder
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+
+        /**
+         * The highest latency counted in the bucket.
+         */
+        private Double upperBoundMs;
+
+        private Long count;
+    }
+}
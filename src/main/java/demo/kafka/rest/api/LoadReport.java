@@ -0,0 +1,48 @@
+package demo.kafka.rest.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadReport {
+
+    /**
+     * The id of the job the scenario ran as, whose status can also be queried via the jobs endpoint.
+     */
+    private String jobId;
+
+    private String status;
+
+    private Integer numberOfEvents;
+
+    private Integer concurrency;
+
+    private Long sent;
+
+    private Long acked;
+
+    private Long failed;
+
+    private Long elapsedMs;
+
+    private Double eventsPerSecond;
+
+    /**
+     * The total bytes of payload sent.
+     */
+    private Long payloadBytes;
+
+    /**
+     * The latency from handing each event to the producer, after any wait for room in the send window, to its
+     * acknowledgement, across every worker.  With a target rate the latency is instead measured from each event's
+     * intended send time, so includes any wait for room in the send window.
+     */
+    private LatencyReport latency;
+
+    private String error;
+}
@@ -0,0 +1,42 @@
+package demo.kafka.rest.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadScenarioRequest {
+
+    private Integer numberOfEvents;
+
+    /**
+     * The number of worker threads the events are sent from, each sending its share of the events.  1 when not
+     * present.
+     */
+    private Integer concurrency;
+
+    /**
+     * The total rate in events per second to send at, shared between the workers, so at least the concurrency.  Sends
+     * as fast as possible when not present.
+     */
+    private Integer targetRate;
+
+    /**
+     * How the key of each event is chosen.  The events are sent without a key when not present.
+     */
+    private KeyStrategy keyStrategy;
+
+    /**
+     * The number of keys used by the FIXED key strategy.
+     */
+    private Integer numberOfKeys;
+
+    /**
+     * The size of the random payload added to each event.  The events carry no payload when not present.
+     */
+    private PayloadSize payloadSize;
+}
@@ -0,0 +1,22 @@
+package demo.kafka.rest.api;
+
+/**
+ * How the payload size of each event is chosen.
+ */
+public enum PayloadDistribution {
+    /**
+     * Every payload is the given bytes.
+     */
+    FIXED,
+
+    /**
+     * Each payload is chosen uniformly at random between the minimum and maximum bytes.
+     */
+    UNIFORM,
+
+    /**
+     * Each payload is chosen at random between the minimum and maximum bytes, spread evenly across the orders of
+     * magnitude, so that a range such as 1KB to 1MB is mostly small payloads with a long tail of large ones.
+     */
+    LOG_UNIFORM
+}
@@ -0,0 +1,47 @@
+package demo.kafka.rest.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayloadSize {
+
+    /**
+     * The producer's default max.request.size, which each record, with its headers and batch overhead, must fit within.
+     */
+    static final int MAX_REQUEST_BYTES = 1024 * 1024;
+
+    /**
+     * The room left for the event's JSON envelope, the type headers of the JsonSerializer, and the record batch
+     * overhead.
+     */
+    static final int ENVELOPE_BYTES = 16 * 1024;
+
+    /**
+     * The largest payload an event can carry, so that an event of this payload is not rejected with a
+     * RecordTooLargeException.
+     */
+    public static final int MAX_BYTES = MAX_REQUEST_BYTES - ENVELOPE_BYTES;
+
+    private PayloadDistribution distribution;
+
+    /**
+     * The size of each payload with the FIXED distribution.
+     */
+    private Integer bytes;
+
+    /**
+     * The smallest payload with the UNIFORM distribution.
+     */
+    private Integer minBytes;
+
+    /**
+     * The largest payload with the UNIFORM distribution.
+     */
+    private Integer maxBytes;
+}
@@ -12,4 +12,31 @@ import lombok.NoArgsConstructor;
 public class TriggerEventsRequest {
 
     private Integer numberOfEvents;
+
+    /**
+     * The rate in events per second to send at.  Sends as fast as possible when not present.
+     */
+    private Integer targetRate;
+
+    /**
+     * The time over which the rate ramps up linearly from zero to the target rate.  The target rate applies from the
+     * start when not present or 0.
+     */
+    private Integer rampUpSeconds;
+
+    /**
+     * How the key of each event is chosen.  The events are sent without a key when not present.
+     */
+    private KeyStrategy keyStrategy;
+
+    /**
+     * The number of keys used by the FIXED key strategy.
+     */
+    private Integer numberOfKeys;
+
+    /**
+     * The size of the random payload added to each event, to measure the effect of realistic message sizes on
+     * batching and compression.  The events carry no payload when not present.
+     */
+    private PayloadSize payloadSize;
 }
@@ -1,7 +1,14 @@
 package demo.kafka.service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import demo.kafka.event.DemoOutboundEvent;
+import demo.kafka.job.Job;
 import demo.kafka.producer.KafkaProducer;
+import demo.kafka.producer.SendPipeline;
+import demo.kafka.properties.KafkaDemoProperties;
 import demo.kafka.rest.api.TriggerEventsRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,13 +16,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
-
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class DemoService {
 
+    @Autowired
+    private final KafkaDemoProperties properties;
+
     @Autowired
     private final KafkaProducer kafkaProducer;
 
@@ -25,14 +33,8 @@ public class DemoService {
      * Processing happens asynchronously (the hand off happens due to the @Async annotation), so the caller can return immediately.
      */
     @Async
-    public void triggerAsync(TriggerEventsRequest request) throws Exception {
-        int counter = 0;
-        log.info("Sending {} events", request.getNumberOfEvents());
-        for ( ; counter < request.getNumberOfEvents(); counter++) {
-            sendEvent();
-            log.info("Events sent so far: {}", counter);
-        }
-        log.info("Total events sent: {}", counter);
+    public void triggerAsync(Job job, TriggerEventsRequest request) throws Exception {
+        runJob(job, request);
     }
 
     /**
@@ -40,23 +42,142 @@ public class DemoService {
      *
      * Processing happens synchronously, only returning when complete.
      */
-    public void triggerSync(TriggerEventsRequest request) throws Exception {
-        int counter = 0;
-        log.info("Sending {} events", request.getNumberOfEvents());
-        for ( ; counter < request.getNumberOfEvents(); counter++) {
-            sendEvent();
-            log.info("Events sent so far: {}", counter);
+    public void triggerSync(Job job, TriggerEventsRequest request) throws Exception {
+        runJob(job, request);
+    }
+
+    /**
+     * Sends the requested number of events, recording the progress and outcome on the job.
+     */
+    private void runJob(Job job, TriggerEventsRequest request) throws Exception {
+        job.start(properties.getProducer().getMode().name(), request.getTargetRate() != null);
+        try {
+            sendEvents(job, request);
+            job.complete();
+        } catch(Exception e) {
+            job.fail(e);
+            throw e;
         }
-        log.info("Total events sent: {}", counter);
     }
 
     /**
-     * Emits an outbound event with a payload of a randomly generated name.
+     * Sends the requested number of events, paced by the target rate if requested, with the keys and payloads chosen
+     * by the request.
+     */
+    private void sendEvents(Job job, TriggerEventsRequest request) throws Exception {
+        final TokenBucket rateLimiter = request.getTargetRate() != null
+                ? new TokenBucket(request.getTargetRate(), request.getRampUpSeconds() != null ? request.getRampUpSeconds() : 0)
+                : null;
+        log.info("Sending {} events - target rate: {} - ramp up seconds: {} - key strategy: {} - payload size: {}", request.getNumberOfEvents(), request.getTargetRate(), request.getRampUpSeconds(), request.getKeyStrategy(), request.getPayloadSize());
+        sendEvents(job, 0, request.getNumberOfEvents(), rateLimiter,
+                KeyGenerator.of(request.getKeyStrategy(), request.getNumberOfKeys()), PayloadGenerator.of(request.getPayloadSize()));
+        log.info("Total events sent: {}", request.getNumberOfEvents());
+    }
+
+    /**
+     * Sends the events with the sequence numbers from the first sequence, through a send pipeline of its own, so that
+     * sending does not wait on each acknowledgement in turn.  Returns the total bytes of the payloads sent.
+     *
+     * Events are generated in batches, with each batch handed to the producer in one go, in transactions in the
+     * TRANSACTIONAL mode.  A batch is handed over when full, or when the configured linger has passed since its first
+     * event was generated.  Depending on the flush policy the producer is then flushed, so the Kafka client can send
+     * the batch without waiting on linger.ms.  As the producers are shared, a flush also waits on the sends of any other
+     * job running at the time.
+     *
+     * If there is a rate limiter the events are paced by it.  The batch linger then bounds how long a paced event waits
+     * in a partly filled batch, with the batch handed over once the linger passes even while awaiting the next event.
+     * The latency of each paced event is measured from its intended send time by the rate limiter's schedule, so
+     * includes any time it was held up.
+     *
+     * If there is a key generator each event is sent with a key chosen by it, otherwise without a key.  If there is a
+     * payload generator each event carries a random payload from it.
+     *
+     * Only returns once every event sent has been acknowledged, throwing the first failure if any send failed.
+     */
+    long sendEvents(Job job, long firstSequence, int numberOfEvents, TokenBucket rateLimiter,
+                           KeyGenerator keyGenerator, PayloadGenerator payloadGenerator) throws Exception {
+        final KafkaDemoProperties.Producer config = properties.getProducer();
+        final long lingerNanos = TimeUnit.MILLISECONDS.toNanos(config.getEventBatchLingerMs());
+        final SendPipeline pipeline = kafkaProducer.pipeline(job);
+        final List<DemoOutboundEvent> batch = new ArrayList<>(config.getEventBatchSize());
+        final List<String> keys = keyGenerator != null ? new ArrayList<>(config.getEventBatchSize()) : null;
+        final long[] scheduledNanos = rateLimiter != null ? new long[config.getEventBatchSize()] : null;
+        long batchStartedNanos = 0;
+        long payloadBytes = 0;
+        for(long sequence = firstSequence; sequence < firstSequence + numberOfEvents; sequence++) {
+            if(rateLimiter != null) {
+                if(batch.isEmpty() || lingerNanos == 0) {
+                    rateLimiter.acquire();
+                } else if(!rateLimiter.acquire(batchStartedNanos + lingerNanos)) {
+                    // The linger passed awaiting the next event, so the partly filled batch is handed over first.
+                    sendBatch(pipeline, keys, batch, scheduledNanos, config.getFlushPolicy());
+                    rateLimiter.acquire();
+                }
+                scheduledNanos[batch.size()] = rateLimiter.scheduledNanos();
+            }
+            if(batch.isEmpty() && lingerNanos > 0) {
+                batchStartedNanos = System.nanoTime();
+            }
+            final DemoOutboundEvent event = buildEvent(job.getId(), sequence, payloadGenerator);
+            batch.add(event);
+            if(event.getPayload() != null) {
+                payloadBytes += event.getPayload().length();
+            }
+            if(keys != null) {
+                keys.add(keyGenerator.keyFor(sequence, event));
+            }
+            if(batch.size() >= config.getEventBatchSize()
+                    || (lingerNanos > 0 && System.nanoTime() - batchStartedNanos >= lingerNanos)) {
+                sendBatch(pipeline, keys, batch, scheduledNanos, config.getFlushPolicy());
+            }
+        }
+        sendBatch(pipeline, keys, batch, scheduledNanos, config.getFlushPolicy());
+        pipeline.awaitCompletion();
+        return payloadBytes;
+    }
+
+    /**
+     * Hands the batch of events, with their keys if keyed and their intended send times if paced, to the producer,
+     * flushing if required by the flush policy, and clears the batch ready to be filled again.
+     */
+    private void sendBatch(SendPipeline pipeline, List<String> keys, List<DemoOutboundEvent> batch, long[] scheduledNanos, KafkaDemoProperties.FlushPolicy flushPolicy) throws Exception {
+        if(batch.isEmpty()) {
+            return;
+        }
+        if(scheduledNanos != null) {
+            pipeline.sendBatch(keys, batch, scheduledNanos);
+            if(keys != null) {
+                keys.clear();
+            }
+        } else if(keys != null) {
+            pipeline.sendBatch(keys, batch);
+            keys.clear();
+        } else {
+            pipeline.sendBatch(batch);
+        }
+        if(flushPolicy == KafkaDemoProperties.FlushPolicy.BATCH) {
+            pipeline.flush();
+        }
+        batch.clear();
+    }
+
+    /**
+     * Builds an outbound event with a payload of a randomly generated name, carrying the job id and its sequence within
+     * the job so that its delivery can be verified.
+     */
+    DemoOutboundEvent buildEvent(String jobId, long sequence) {
+        return buildEvent(jobId, sequence, null);
+    }
+
+    /**
+     * Builds an outbound event, with a random payload from the generator if not null.
      */
-    private void sendEvent() throws Exception {
-        DemoOutboundEvent demoEvent = DemoOutboundEvent.builder()
-                .name(randomAlphabetic(1).toUpperCase() + randomAlphabetic(7).toLowerCase())
+    DemoOutboundEvent buildEvent(String jobId, long sequence, PayloadGenerator payloadGenerator) {
+        return DemoOutboundEvent.builder()
+                .name(NameGenerator.randomName())
+                .jobId(jobId)
+                .sequence(sequence)
+                .payload(payloadGenerator != null ? payloadGenerator.next() : null)
                 .build();
-        kafkaProducer.sendMessage(demoEvent);
     }
 }
@@ -0,0 +1,73 @@
+package demo.kafka.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import demo.kafka.event.DemoOutboundEvent;
+import demo.kafka.rest.api.KeyStrategy;
+
+/**
+ * Chooses the key of each event sent by a job, according to the key strategy of the trigger request.
+ */
+abstract class KeyGenerator {
+
+    /**
+     * The key of the event with the given sequence number within the job.
+     */
+    abstract String keyFor(long sequence, DemoOutboundEvent event);
+
+    /**
+     * The key generator for the strategy, or null if the events are not keyed.
+     */
+    static KeyGenerator of(KeyStrategy strategy, Integer numberOfKeys) {
+        if(strategy == null) {
+            return null;
+        }
+        switch(strategy) {
+            case RANDOM:
+                return new KeyGenerator() {
+                    @Override
+                    String keyFor(long sequence, DemoOutboundEvent event) {
+                        return Long.toHexString(ThreadLocalRandom.current().nextLong());
+                    }
+                };
+            case SEQUENCE:
+                return new KeyGenerator() {
+                    @Override
+                    String keyFor(long sequence, DemoOutboundEvent event) {
+                        return Long.toString(sequence);
+                    }
+                };
+            case NAME_HASH:
+                return new KeyGenerator() {
+                    @Override
+                    String keyFor(long sequence, DemoOutboundEvent event) {
+                        return Integer.toHexString(event.getName().hashCode());
+                    }
+                };
+            case FIXED:
+                return new FixedKeyGenerator(numberOfKeys);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Chooses at random from a fixed set of keys, created up front so that choosing a key does not allocate.
+     */
+    private static class FixedKeyGenerator extends KeyGenerator {
+
+        private final String[] keys;
+
+        FixedKeyGenerator(int numberOfKeys) {
+            keys = new String[numberOfKeys];
+            for(int i = 0; i < numberOfKeys; i++) {
+                keys[i] = "key-" + i;
+            }
+        }
+
+        @Override
+        String keyFor(long sequence, DemoOutboundEvent event) {
+            return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+        }
+    }
+}
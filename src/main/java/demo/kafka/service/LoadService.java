@@ -0,0 +1,147 @@
+package demo.kafka.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import demo.kafka.job.Job;
+import demo.kafka.properties.KafkaDemoProperties;
+import demo.kafka.rest.api.JobStatus;
+import demo.kafka.rest.api.LoadReport;
+import demo.kafka.rest.api.LoadScenarioRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs a load scenario, fanning the events out across worker threads and reporting the aggregate throughput and
+ * latency distribution, so that the same experiment can be repeated against each injected fault.
+ *
+ * The workers of every scenario run on a shared pool, bounded to the maximum workers across the scenarios running at
+ * once.  A scenario is rejected if there are not enough workers free for its concurrency.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LoadService implements DisposableBean {
+
+    /**
+     * The most worker threads across the scenarios running at once.
+     */
+    static final int MAX_WORKERS = 256;
+
+    private static final AtomicInteger WORKER_IDS = new AtomicInteger();
+
+    @Autowired
+    private final KafkaDemoProperties properties;
+
+    @Autowired
+    private final DemoService demoService;
+
+    private final Semaphore workerPermits = new Semaphore(MAX_WORKERS);
+
+    private final ExecutorService workers = Executors.newCachedThreadPool(runnable -> new Thread(runnable, "load-worker-" + WORKER_IDS.getAndIncrement()));
+
+    /**
+     * Runs the scenario as the given job, only returning once every worker has completed.
+     *
+     * Each worker sends its share of the events as a trigger request does, through its own send pipeline, paced by its
+     * share of the target rate.
+     * The sequence numbers of the events are unique across the workers, so their delivery can be verified as one job.
+     * If any worker fails the remaining workers are left to complete, with the report carrying the first failure.
+     *
+     * Throws a TaskRejectedException without running the scenario if there are not enough workers free.
+     */
+    public LoadReport run(Job job, LoadScenarioRequest scenario) {
+        final int numberOfEvents = scenario.getNumberOfEvents();
+        final int concurrency = scenario.getConcurrency() != null ? scenario.getConcurrency() : 1;
+        if(!workerPermits.tryAcquire(concurrency)) {
+            throw new TaskRejectedException("Not enough load workers free for a concurrency of " + concurrency
+                    + ", with " + workerPermits.availablePermits() + " of " + MAX_WORKERS + " free");
+        }
+        final LongAdder payloadBytes = new LongAdder();
+        final List<Future<?>> results = new ArrayList<>(concurrency);
+        log.info("Running load scenario - events: {} - concurrency: {} - target rate: {} - key strategy: {} - payload size: {}",
+                numberOfEvents, concurrency, scenario.getTargetRate(), scenario.getKeyStrategy(), scenario.getPayloadSize());
+        job.start(properties.getProducer().getMode().name(), scenario.getTargetRate() != null);
+        try {
+            long firstSequence = 0;
+            for(int worker = 0; worker < concurrency; worker++) {
+                final int events = share(numberOfEvents, concurrency, worker);
+                final Integer rate = scenario.getTargetRate() != null ? share(scenario.getTargetRate(), concurrency, worker) : null;
+                final long workerFirstSequence = firstSequence;
+                results.add(workers.submit(() -> {
+                    sendEvents(job, scenario, workerFirstSequence, events, rate, payloadBytes);
+                    return null;
+                }));
+                firstSequence += events;
+            }
+            Exception failure = null;
+            for(Future<?> result : results) {
+                try {
+                    result.get();
+                } catch(ExecutionException e) {
+                    failure = failure != null ? failure : (e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+                }
+            }
+            if(failure != null) {
+                job.fail(failure);
+            } else {
+                job.complete();
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail(e);
+        } finally {
+            results.forEach(result -> result.cancel(true));
+            workerPermits.release(concurrency);
+        }
+        final JobStatus status = job.toStatus();
+        log.info("Load scenario {} - acked: {} - failed: {} - events per second: {}", status.getStatus(), status.getAcked(), status.getFailed(), status.getEventsPerSecond());
+        return LoadReport.builder()
+                .jobId(job.getId())
+                .status(status.getStatus())
+                .numberOfEvents(numberOfEvents)
+                .concurrency(concurrency)
+                .sent(status.getSent())
+                .acked(status.getAcked())
+                .failed(status.getFailed())
+                .elapsedMs(status.getElapsedMs())
+                .eventsPerSecond(status.getEventsPerSecond())
+                .payloadBytes(payloadBytes.sum())
+                .latency(job.toLatencyReport())
+                .error(status.getError())
+                .build();
+    }
+
+    /**
+     * Sends the worker's share of the events, in batches and in the producer mode's transactions as for a trigger
+     * request, paced by the worker's share of the target rate.
+     */
+    private void sendEvents(Job job, LoadScenarioRequest scenario, long firstSequence, int events, Integer rate,
+                            LongAdder payloadBytes) throws Exception {
+        payloadBytes.add(demoService.sendEvents(job, firstSequence, events, rate != null ? new TokenBucket(rate, 0) : null,
+                KeyGenerator.of(scenario.getKeyStrategy(), scenario.getNumberOfKeys()), PayloadGenerator.of(scenario.getPayloadSize())));
+    }
+
+    /**
+     * The worker's share of the total, spreading the remainder across the first workers.
+     */
+    static int share(int total, int workers, int worker) {
+        return total / workers + (worker < total % workers ? 1 : 0);
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,34 @@
+package demo.kafka.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates random names of a capitalised letter followed by seven lower case letters.
+ *
+ * All eight letters are drawn from a single random long, and written into a per thread buffer, so the only allocation
+ * is the resulting String.
+ */
+final class NameGenerator {
+
+    static final int NAME_LENGTH = 8;
+
+    private static final int LETTERS = 26;
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[NAME_LENGTH]);
+
+    private NameGenerator() {
+    }
+
+    static String randomName() {
+        final byte[] name = BUFFER.get();
+        // 26^8 is far below 2^63, so taking each letter as the next base 26 digit has negligible bias.
+        long bits = ThreadLocalRandom.current().nextLong() >>> 1;
+        name[0] = (byte) ('A' + (int) (bits % LETTERS));
+        for(int i = 1; i < NAME_LENGTH; i++) {
+            bits /= LETTERS;
+            name[i] = (byte) ('a' + (int) (bits % LETTERS));
+        }
+        return new String(name, 0, NAME_LENGTH, StandardCharsets.ISO_8859_1);
+    }
+}
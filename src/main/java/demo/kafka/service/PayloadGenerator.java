@@ -0,0 +1,56 @@
+package demo.kafka.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import demo.kafka.rest.api.PayloadDistribution;
+import demo.kafka.rest.api.PayloadSize;
+
+/**
+ * Generates the random payload added to each event, sized by the requested distribution, and taken from the pool of
+ * pre-generated random characters.
+ */
+abstract class PayloadGenerator {
+
+    abstract int nextSize();
+
+    String next() {
+        return PayloadPool.take(nextSize());
+    }
+
+    /**
+     * The generator for the payload size, or null if the events carry no payload.
+     */
+    static PayloadGenerator of(PayloadSize payloadSize) {
+        if(payloadSize == null || payloadSize.getDistribution() == null) {
+            return null;
+        }
+        if(payloadSize.getDistribution() == PayloadDistribution.FIXED) {
+            final int bytes = payloadSize.getBytes();
+            return new PayloadGenerator() {
+                @Override
+                int nextSize() {
+                    return bytes;
+                }
+            };
+        }
+        final int minBytes = payloadSize.getMinBytes();
+        final int maxBytes = payloadSize.getMaxBytes();
+        if(payloadSize.getDistribution() == PayloadDistribution.LOG_UNIFORM) {
+            final double logMin = Math.log(Math.max(1, minBytes));
+            final double logMax = Math.log(maxBytes + 1d);
+            return new PayloadGenerator() {
+                @Override
+                int nextSize() {
+                    final int size = (int) Math.exp(logMin + ThreadLocalRandom.current().nextDouble() * (logMax - logMin));
+                    return Math.max(minBytes, Math.min(maxBytes, size));
+                }
+            };
+        }
+        return new PayloadGenerator() {
+            @Override
+            int nextSize() {
+                return ThreadLocalRandom.current().nextInt(minBytes, maxBytes + 1);
+            }
+        };
+    }
+}
@@ -0,0 +1,66 @@
+package demo.kafka.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A pool of random alphanumeric characters, each payload taken from it at a random offset.
+ *
+ * Taking a payload is a copy of the pool's bytes rather than drawing a random number per character, so generating
+ * large payloads does not dominate the CPU of a load test.  The pool is generated on first use, at twice the largest
+ * payload taken so far, so payloads of any size start at many distinct offsets, while the heap only holds a pool as
+ * large as the payloads requested.  Being alphanumeric the payloads compress as poorly as typical random text, and
+ * need no escaping in JSON.
+ */
+final class PayloadPool {
+
+    private static final byte[] ALPHANUMERIC = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+
+    static final int MIN_POOL_BYTES = 64 * 1024;
+
+    private static volatile String pool = "";
+
+    private PayloadPool() {
+    }
+
+    /**
+     * A payload of the given size, taken from a random offset in the pool.
+     */
+    static String take(int size) {
+        final String current = poolFor(size);
+        final int offset = ThreadLocalRandom.current().nextInt(current.length() - size + 1);
+        return current.substring(offset, offset + size);
+    }
+
+    /**
+     * The size of the pool generated so far.
+     */
+    static int size() {
+        return pool.length();
+    }
+
+    /**
+     * The pool, generated again at twice the size if smaller than twice the size.
+     */
+    private static String poolFor(int size) {
+        final String current = pool;
+        if(current.length() >= 2L * size) {
+            return current;
+        }
+        synchronized(PayloadPool.class) {
+            if(pool.length() < 2L * size) {
+                pool = generate(Math.max(MIN_POOL_BYTES, 2 * size));
+            }
+            return pool;
+        }
+    }
+
+    private static String generate(int size) {
+        final byte[] bytes = new byte[size];
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        for(int i = 0; i < size; i++) {
+            bytes[i] = ALPHANUMERIC[random.nextInt(ALPHANUMERIC.length)];
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,110 @@
+package demo.kafka.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Paces a run of events to a target rate, optionally ramping up linearly from zero to the target rate.
+ *
+ * Each token is due at its time by the schedule, being when it would be taken had the events been sent exactly at the
+ * rate from the start, and is taken once that time has passed.  The latency of each event is measured from that
+ * intended send time.  A sender held up, such as by a full send window or a slow broker, falls behind the schedule,
+ * so then takes the tokens already due back to back until it has caught up, with the latency of the later events
+ * recovering as it does.  A token bucket is intended to be used by a single sending thread, so holds its state in
+ * plain fields.
+ */
+final class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // The longest time to park before checking the schedule again, so that an interrupt or deadline is not missed for long.
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final double targetRate;
+
+    private final long rampNanos;
+
+    private final LongSupplier clock;
+
+    private final long startNanos;
+
+    private long taken;
+
+    TokenBucket(int targetRate, int rampUpSeconds) {
+        this(targetRate, rampUpSeconds, System::nanoTime);
+    }
+
+    TokenBucket(int targetRate, int rampUpSeconds, LongSupplier clock) {
+        this.targetRate = targetRate;
+        this.rampNanos = TimeUnit.SECONDS.toNanos(rampUpSeconds);
+        this.clock = clock;
+        this.startNanos = clock.getAsLong();
+    }
+
+    /**
+     * Takes a token, parking until one is available.
+     */
+    void acquire() throws InterruptedException {
+        long waitNanos;
+        while((waitNanos = tryAcquire()) > 0) {
+            LockSupport.parkNanos(waitNanos);
+            if(Thread.interrupted()) {
+                throw new InterruptedException("Interrupted awaiting send rate");
+            }
+        }
+    }
+
+    /**
+     * Takes a token, parking until one is available or until the deadline has passed.  Returns whether a token was
+     * taken.
+     */
+    boolean acquire(long deadlineNanos) throws InterruptedException {
+        long waitNanos;
+        while((waitNanos = tryAcquire()) > 0) {
+            final long remainingNanos = deadlineNanos - clock.getAsLong();
+            if(remainingNanos <= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(Math.min(waitNanos, remainingNanos));
+            if(Thread.interrupted()) {
+                throw new InterruptedException("Interrupted awaiting send rate");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes the next token if it is due by the schedule, returning 0.  Otherwise returns the time to wait before trying
+     * again.
+     */
+    long tryAcquire() {
+        final long waitNanos = scheduledNanos(taken) - clock.getAsLong();
+        if(waitNanos <= 0) {
+            taken++;
+            return 0;
+        }
+        return Math.min(MAX_PARK_NANOS, waitNanos);
+    }
+
+    /**
+     * The time the last token taken was due by the schedule.
+     */
+    long scheduledNanos() {
+        return scheduledNanos(Math.max(0, taken - 1));
+    }
+
+    /**
+     * The time the token at the position, counting from 0, is due by the schedule, being when the events accrued at the
+     * rate, starting with the first event at the start, reach its position.
+     */
+    long scheduledNanos(long position) {
+        final double rampSeconds = (double) rampNanos / NANOS_PER_SECOND;
+        // The events accrued over the ramp, at its average of half the target rate.
+        final double rampEvents = targetRate * rampSeconds / 2;
+        final double seconds = position < rampEvents
+                ? Math.sqrt(2 * position * rampSeconds / targetRate)
+                : rampSeconds + (position - rampEvents) / targetRate;
+        return startNanos + Math.round(seconds * NANOS_PER_SECOND);
+    }
+}
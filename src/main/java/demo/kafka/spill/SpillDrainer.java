@@ -0,0 +1,110 @@
+package demo.kafka.spill;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import demo.kafka.producer.CircuitBreakerOpenException;
+import demo.kafka.producer.KafkaProducer;
+import demo.kafka.properties.KafkaDemoProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+/**
+ * Replays the records in the spill log once the broker recovers.
+ *
+ * At each drain interval the spilled records are replayed from the oldest, a batch at a time, each batch committed as
+ * replayed once all its sends are acknowledged.  If any send of a batch fails with a retriable error the broker is
+ * taken to be still unavailable, so the batch is left in the log and replayed again at the next interval.  Records
+ * already acknowledged from that batch are then sent twice, so replay is at least once.  A send failing with a
+ * non-retriable error cannot succeed on replay, so is logged and dropped.  While the circuit breaker is open the drain
+ * is paused in the same way.
+ *
+ * Replayed records are sent after the records sent since the outage, so their order is not kept.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "kafka.spill", name = "enabled", havingValue = "true")
+public class SpillDrainer implements DisposableBean {
+
+    private final SpillLog spillLog;
+
+    private final KafkaProducer kafkaProducer;
+
+    private final int batchSize;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "spill-drainer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SpillDrainer(SpillLog spillLog, KafkaProducer kafkaProducer, KafkaDemoProperties properties) {
+        this.spillLog = spillLog;
+        this.kafkaProducer = kafkaProducer;
+        final KafkaDemoProperties.Spill spill = properties.getSpill();
+        this.batchSize = spill.getDrainBatchSize();
+        log.info("Spill config: directory: {} - segmentBytes: {} - maxBytes: {} - drainIntervalMs: {} - drainBatchSize: {}",
+                spill.getDirectory(), spill.getSegmentBytes(), spill.getMaxBytes(), spill.getDrainIntervalMs(), spill.getDrainBatchSize());
+        scheduler.scheduleWithFixedDelay(this::drainQuietly, spill.getDrainIntervalMs(), spill.getDrainIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replays the spilled records until the log is empty or a replay fails with a retriable error, returning the number
+     * of records replayed.
+     */
+    int drain() throws Exception {
+        int replayed = 0;
+        while(!spillLog.isEmpty()) {
+            final SpillLog.SpillBatch batch = spillLog.peek(batchSize);
+            final List<CompletableFuture<SendResult>> futures = new ArrayList<>(batch.records().size());
+            try {
+                for(SpilledRecord record : batch.records()) {
+                    futures.add(kafkaProducer.replay(record.key(), record.payload()));
+                }
+            } catch(CircuitBreakerOpenException e) {
+                log.warn("Spill drain paused: {} - bytes awaiting replay: {}", e.getMessage(), spillLog.getBytes());
+                return replayed;
+            }
+            for(CompletableFuture<SendResult> future : futures) {
+                try {
+                    future.get();
+                } catch(ExecutionException e) {
+                    if(KafkaProducer.isRetriable(e)) {
+                        log.warn("Spill drain paused, broker unavailable: {} - bytes awaiting replay: {}", e.getCause().getMessage(), spillLog.getBytes());
+                        return replayed;
+                    }
+                    log.error("Spill drain dropped record: {}", e.getCause().getMessage());
+                }
+            }
+            spillLog.commit(batch);
+            replayed += batch.records().size();
+        }
+        if(replayed > 0) {
+            log.info("Spill drain replayed {} records", replayed);
+        }
+        return replayed;
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch(Exception e) {
+            log.error("Spill drain failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,384 @@
+package demo.kafka.spill;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * An append-only log on local disk of the records that could not be sent, to be replayed once the broker recovers.
+ *
+ * The log is a sequence of fixed size, memory-mapped segment files, so appending a record is a copy into memory with
+ * the operating system writing it to disk.  Each segment starts with a header holding the position up to which its
+ * records have been replayed, followed by the records, each written as its length then the key, the payload's class
+ * and the payload as JSON.  The length is written last, so a partly written record is not read back.  A segment is
+ * deleted once all its records have been replayed, with the log recovered from the segment files on startup.
+ *
+ * Disk usage is bounded by the maximum bytes, with records rejected once the log is full.  A record that can no longer
+ * be decoded, such as after its payload class is renamed, is logged and skipped, so it does not hold up the records
+ * behind it.
+ *
+ * The published metrics are kafka.producer.spill.bytes, the bytes of records awaiting replay, and
+ * kafka.producer.spill.records, the count of records by outcome: spilled, rejected, replayed or undecodable.
+ */
+@Slf4j
+public class SpillLog implements DisposableBean {
+
+    static final String BYTES = "kafka.producer.spill.bytes";
+    static final String RECORDS = "kafka.producer.spill.records";
+
+    static final int HEADER_BYTES = 8;
+
+    private static final String SEGMENT_PREFIX = "spill-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Path directory;
+
+    private final int segmentBytes;
+
+    private final int maxSegments;
+
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    private final Map<String, Class<?>> payloadClasses = new ConcurrentHashMap<>();
+
+    private final Counter spilled;
+
+    private final Counter rejected;
+
+    private final Counter replayed;
+
+    private final Counter undecodable;
+
+    private long nextSegmentId;
+
+    private long bytes;
+
+    public SpillLog(Path directory, int segmentBytes, long maxBytes, MeterRegistry meterRegistry) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = (int) Math.max(1, maxBytes / segmentBytes);
+        this.spilled = recordCounter(meterRegistry, "spilled");
+        this.rejected = recordCounter(meterRegistry, "rejected");
+        this.replayed = recordCounter(meterRegistry, "replayed");
+        this.undecodable = recordCounter(meterRegistry, "undecodable");
+        Gauge.builder(BYTES, this, SpillLog::getBytes)
+                .description("Bytes of spilled records awaiting replay")
+                .register(meterRegistry);
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    /**
+     * Appends the record to the log, returning false if it was rejected as the log is full.
+     */
+    public boolean append(String key, Object payload) {
+        final byte[] entry;
+        try {
+            entry = encode(key, payload);
+        } catch(IOException e) {
+            log.error("Spill log - unable to encode record: {}", e.getMessage());
+            rejected.increment();
+            return false;
+        }
+        synchronized(this) {
+            try {
+                Segment segment = segments.peekLast();
+                if(segment == null || !segment.hasRoom(entry.length)) {
+                    if(segments.size() >= maxSegments || Integer.BYTES + entry.length > segmentBytes - HEADER_BYTES) {
+                        rejected.increment();
+                        return false;
+                    }
+                    segment = newSegment();
+                }
+                segment.append(entry);
+                bytes += Integer.BYTES + entry.length;
+            } catch(IOException e) {
+                log.error("Spill log - unable to create segment: {}", e.getMessage());
+                rejected.increment();
+                return false;
+            }
+        }
+        spilled.increment();
+        return true;
+    }
+
+    /**
+     * Reads up to the maximum records awaiting replay from the oldest segment, without removing them.  Commit the batch
+     * once its records have been replayed.  Records that cannot be decoded are logged and skipped, with the batch
+     * committing past them.
+     */
+    public synchronized SpillBatch peek(int maxRecords) {
+        final Segment segment = segments.peekFirst();
+        if(segment == null) {
+            return SpillBatch.EMPTY;
+        }
+        final List<SpilledRecord> records = new ArrayList<>();
+        int skipped = 0;
+        int position = segment.readPosition;
+        while(records.size() + skipped < maxRecords && position < segment.writePosition) {
+            final int length = segment.buffer.getInt(position);
+            final byte[] entry = new byte[length];
+            segment.buffer.get(position + Integer.BYTES, entry);
+            try {
+                records.add(decode(entry));
+            } catch(IOException | RuntimeException e) {
+                log.error("Spill log - skipping undecodable record at position {} of {}: {}", position, segment.file.getFileName(), e.getMessage());
+                skipped++;
+            }
+            position += Integer.BYTES + length;
+        }
+        return new SpillBatch(records, skipped, segment, position);
+    }
+
+    /**
+     * Marks the records of the batch as replayed, deleting their segment once all its records have been replayed.
+     */
+    public synchronized void commit(SpillBatch batch) throws IOException {
+        if(batch.isEmpty()) {
+            return;
+        }
+        final Segment segment = batch.segment;
+        bytes -= batch.endPosition - segment.readPosition;
+        segment.setReadPosition(batch.endPosition);
+        replayed.increment(batch.records().size());
+        undecodable.increment(batch.skipped);
+        if(segment.isDrained()) {
+            if(segment != segments.peekLast()) {
+                segments.remove(segment);
+                segment.delete();
+            } else {
+                segment.reset();
+            }
+        }
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized boolean isEmpty() {
+        return bytes == 0;
+    }
+
+    @Override
+    public synchronized void destroy() throws IOException {
+        for(Segment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    private void recover() throws IOException {
+        final List<Path> files;
+        try(Stream<Path> paths = Files.list(directory)) {
+            files = paths.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        for(Path file : files) {
+            final String name = file.getFileName().toString();
+            final long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+            final Segment segment = new Segment(file, segmentBytes);
+            if(segment.isDrained()) {
+                segment.delete();
+            } else {
+                segments.addLast(segment);
+                bytes += segment.writePosition - segment.readPosition;
+            }
+        }
+        if(!segments.isEmpty()) {
+            log.info("Spill log - recovered {} bytes of records awaiting replay from {}", bytes, directory);
+        }
+    }
+
+    private Segment newSegment() throws IOException {
+        final Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSegmentId++, SEGMENT_SUFFIX));
+        final Segment segment = new Segment(file, segmentBytes);
+        segments.addLast(segment);
+        return segment;
+    }
+
+    private static byte[] encode(String key, Object payload) throws IOException {
+        final byte[] keyBytes = key != null ? key.getBytes(StandardCharsets.UTF_8) : null;
+        final byte[] classBytes = payload.getClass().getName().getBytes(StandardCharsets.UTF_8);
+        final byte[] payloadBytes = OBJECT_MAPPER.writeValueAsBytes(payload);
+        final int keyLength = keyBytes != null ? keyBytes.length : 0;
+        final byte[] entry = new byte[Integer.BYTES * 2 + keyLength + classBytes.length + payloadBytes.length];
+        final ByteBuffer buffer = ByteBuffer.wrap(entry);
+        buffer.putInt(keyBytes != null ? keyBytes.length : -1);
+        if(keyBytes != null) {
+            buffer.put(keyBytes);
+        }
+        buffer.putInt(classBytes.length);
+        buffer.put(classBytes);
+        buffer.put(payloadBytes);
+        return entry;
+    }
+
+    private SpilledRecord decode(byte[] entry) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(entry);
+        final int keyLength = buffer.getInt();
+        String key = null;
+        if(keyLength >= 0) {
+            key = new String(entry, buffer.position(), keyLength, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + keyLength);
+        }
+        final int classLength = buffer.getInt();
+        final String className = new String(entry, buffer.position(), classLength, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + classLength);
+        final Object payload = OBJECT_MAPPER.readValue(entry, buffer.position(), buffer.remaining(), payloadClass(className));
+        return new SpilledRecord(key, payload);
+    }
+
+    private Class<?> payloadClass(String className) throws IOException {
+        try {
+            Class<?> payloadClass = payloadClasses.get(className);
+            if(payloadClass == null) {
+                payloadClass = Class.forName(className);
+                payloadClasses.put(className, payloadClass);
+            }
+            return payloadClass;
+        } catch(ClassNotFoundException e) {
+            throw new IOException("Unknown spilled payload class: " + className, e);
+        }
+    }
+
+    private static Counter recordCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(RECORDS)
+                .description("Spilled records by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * A batch of records read from a segment, with the position following its last record.
+     */
+    public static final class SpillBatch {
+
+        static final SpillBatch EMPTY = new SpillBatch(List.of(), 0, null, 0);
+
+        private final List<SpilledRecord> records;
+
+        private final int skipped;
+
+        private final Segment segment;
+
+        private final int endPosition;
+
+        private SpillBatch(List<SpilledRecord> records, int skipped, Segment segment, int endPosition) {
+            this.records = records;
+            this.skipped = skipped;
+            this.segment = segment;
+            this.endPosition = endPosition;
+        }
+
+        public List<SpilledRecord> records() {
+            return records;
+        }
+
+        /**
+         * The number of records skipped as they could not be decoded.
+         */
+        public int skipped() {
+            return skipped;
+        }
+
+        /**
+         * Whether the batch has neither records to replay nor skipped records to commit past.
+         */
+        public boolean isEmpty() {
+            return records.isEmpty() && skipped == 0;
+        }
+    }
+
+    /**
+     * A memory-mapped segment file.
+     */
+    private static final class Segment {
+
+        private final Path file;
+
+        private final FileChannel channel;
+
+        private final MappedByteBuffer buffer;
+
+        private int readPosition;
+
+        private int writePosition;
+
+        Segment(Path file, int segmentBytes) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            this.readPosition = Math.max(HEADER_BYTES, buffer.getInt(0));
+            // The records follow on from each other, ending at the first zero length.
+            int position = readPosition;
+            while(position + Integer.BYTES <= buffer.capacity() && buffer.getInt(position) > 0) {
+                position += Integer.BYTES + buffer.getInt(position);
+            }
+            this.writePosition = position;
+        }
+
+        boolean hasRoom(int entryLength) {
+            return writePosition + Integer.BYTES + entryLength <= buffer.capacity();
+        }
+
+        void append(byte[] entry) {
+            buffer.put(writePosition + Integer.BYTES, entry);
+            buffer.putInt(writePosition, entry.length);
+            writePosition += Integer.BYTES + entry.length;
+        }
+
+        void setReadPosition(int position) {
+            readPosition = position;
+            buffer.putInt(0, position);
+        }
+
+        boolean isDrained() {
+            return readPosition >= writePosition;
+        }
+
+        /**
+         * Clears the drained segment so it can be written from the start again.
+         */
+        void reset() {
+            buffer.put(HEADER_BYTES, new byte[writePosition - HEADER_BYTES]);
+            readPosition = HEADER_BYTES;
+            writePosition = HEADER_BYTES;
+            buffer.putInt(0, readPosition);
+        }
+
+        void close() throws IOException {
+            buffer.force();
+            channel.close();
+        }
+
+        void delete() throws IOException {
+            channel.close();
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package demo.kafka.spill;
+
+/**
+ * A record read back from the spill log, to be replayed to the producer.
+ */
+public record SpilledRecord(String key, Object payload) {
+}
@@ -0,0 +1,109 @@
+package demo.kafka;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AsyncConfigurationTest {
+
+    /**
+     * Ensure the Spring Boot application task executor is used when virtual threads are not enabled.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetAsyncExecutor_ApplicationTaskExecutor() {
+        Executor applicationTaskExecutor = mock(Executor.class);
+        ObjectProvider<Executor> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(applicationTaskExecutor);
+        AsyncConfiguration configuration = new AsyncConfiguration(false, 1000, provider);
+        configuration.afterPropertiesSet();
+
+        assertThat(configuration.getAsyncExecutor(), instanceOf(AsyncConfiguration.ConcurrencyLimitedExecutor.class));
+        assertThat(((AsyncConfiguration.ConcurrencyLimitedExecutor) configuration.getAsyncExecutor()).getDelegate(), sameInstance(applicationTaskExecutor));
+    }
+
+    /**
+     * Ensure virtual threads are used when enabled on Java 21 or later, with the startup failing on an earlier version.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetAsyncExecutor_VirtualThreads() {
+        AsyncConfiguration configuration = new AsyncConfiguration(true, 10, mock(ObjectProvider.class));
+        if(Runtime.version().feature() < 21) {
+            assertThrows(IllegalStateException.class, configuration::afterPropertiesSet);
+            return;
+        }
+        configuration.afterPropertiesSet();
+
+        assertThat(configuration.getAsyncExecutor(), instanceOf(AsyncConfiguration.ConcurrencyLimitedExecutor.class));
+        assertThat(((AsyncConfiguration.ConcurrencyLimitedExecutor) configuration.getAsyncExecutor()).getDelegate(), instanceOf(SimpleAsyncTaskExecutor.class));
+        configuration.destroy();
+    }
+
+    /**
+     * Ensure a concurrency limit below 1 fails the startup with either executor.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAfterPropertiesSet_InvalidConcurrencyLimit() {
+        assertThrows(IllegalStateException.class, new AsyncConfiguration(true, 0, mock(ObjectProvider.class))::afterPropertiesSet);
+        assertThrows(IllegalStateException.class, new AsyncConfiguration(false, 0, mock(ObjectProvider.class))::afterPropertiesSet);
+    }
+
+    /**
+     * Ensure a job submitted once the concurrency limit of jobs are running or queued is rejected without blocking,
+     * with a further job accepted once a running job completes.
+     */
+    @Test
+    public void testConcurrencyLimitedExecutor_Rejected() throws Exception {
+        ExecutorService delegate = Executors.newCachedThreadPool();
+        try {
+            Executor executor = new AsyncConfiguration.ConcurrencyLimitedExecutor(delegate, 1);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch completed = new CountDownLatch(1);
+            executor.execute(() -> {
+                awaitQuietly(release);
+                completed.countDown();
+            });
+
+            TaskRejectedException exception = assertThrows(TaskRejectedException.class, () -> executor.execute(() -> {}));
+            assertThat(exception.getMessage(), equalTo("Async job concurrency limit of 1 reached"));
+
+            release.countDown();
+            assertThat(completed.await(5, TimeUnit.SECONDS), equalTo(true));
+            CountDownLatch accepted = new CountDownLatch(1);
+            Awaitility.await().atMost(5, TimeUnit.SECONDS).ignoreExceptions()
+                    .until(() -> {
+                        executor.execute(accepted::countDown);
+                        return true;
+                    });
+            assertThat(accepted.await(5, TimeUnit.SECONDS), equalTo(true));
+        } finally {
+            delegate.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package demo.kafka.consumer;
+
+import java.util.List;
+import java.util.Optional;
+
+import demo.kafka.event.DemoOutboundEvent;
+import demo.kafka.job.Job;
+import demo.kafka.job.JobRegistry;
+import demo.kafka.rest.api.DeliveryReport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class DeliveryVerifierTest {
+
+    private JobRegistry jobRegistry;
+    private SimpleMeterRegistry meterRegistry;
+    private DeliveryVerifier verifier;
+
+    @BeforeEach
+    public void setUp() {
+        jobRegistry = new JobRegistry();
+        meterRegistry = new SimpleMeterRegistry();
+        verifier = new DeliveryVerifier(jobRegistry, meterRegistry);
+    }
+
+    /**
+     * Ensure a complete, in order delivery is reported with no duplicates, gaps, reordering or missing events.
+     */
+    @Test
+    public void testReport_Complete() {
+        Job job = jobRegistry.create(100);
+        for(long sequence = 0; sequence < 100; sequence++) {
+            receive(event(job.getId(), sequence), (int) (sequence % 3));
+        }
+        DeliveryReport report = verifier.report(job.getId()).get();
+        assertThat(report.getReceived(), equalTo(100L));
+        assertThat(report.getUnique(), equalTo(100L));
+        assertThat(report.getDuplicates(), equalTo(0L));
+        assertThat(report.getGaps(), equalTo(0L));
+        assertThat(report.getReordered(), equalTo(0L));
+        assertThat(report.getInvalid(), equalTo(0L));
+        assertThat(report.getHighestSequence(), equalTo(99L));
+        assertThat(report.getMissing(), equalTo(0L));
+    }
+
+    /**
+     * Ensure duplicates, gaps and reordering within a partition are each counted.
+     */
+    @Test
+    public void testReport_DuplicatesGapsAndReordering() {
+        Job job = jobRegistry.create(10);
+        // Partition 0: 0, 1, 1 (duplicate), 3 (gap at 2), 6 (gaps at 4 and 5 not yet consumed)
+        receive(event(job.getId(), 0), 0);
+        receive(event(job.getId(), 1), 0);
+        receive(event(job.getId(), 1), 0);
+        receive(event(job.getId(), 3), 0);
+        receive(event(job.getId(), 6), 0);
+        // Partition 1: 5 then 4 (reordered)
+        receive(event(job.getId(), 5), 1);
+        receive(event(job.getId(), 4), 1);
+
+        DeliveryReport report = verifier.report(job.getId()).get();
+        assertThat(report.getReceived(), equalTo(7L));
+        assertThat(report.getUnique(), equalTo(6L));
+        assertThat(report.getDuplicates(), equalTo(1L));
+        assertThat(report.getGaps(), equalTo(1L));
+        assertThat(report.getReordered(), equalTo(1L));
+        assertThat(report.getMissing(), equalTo(4L));
+    }
+
+    /**
+     * Ensure events without a job id and sequence are ignored, and that a job not known to this instance is reported
+     * without the missing count.
+     */
+    @Test
+    public void testReceive_UnknownAndUntracked() {
+        receive(DemoOutboundEvent.builder().name("Abcdefgh").build(), 0);
+        receive(null, 0);
+        receive(event("other-instance-job", 0), 0);
+
+        assertThat(verifier.report("other-instance-job").get().getMissing(), nullValue());
+        assertThat(verifier.report("unknown").isPresent(), equalTo(false));
+    }
+
+    /**
+     * Ensure events with a sequence number outside the job's range are counted as invalid and otherwise ignored, with
+     * the range of a job not known to this instance bounded.
+     */
+    @Test
+    public void testReceive_InvalidSequence() {
+        Job job = jobRegistry.create(10);
+        receive(event(job.getId(), 5), 0);
+        receive(event(job.getId(), -1), 0);
+        receive(event(job.getId(), 10), 0);
+        receive(event(job.getId(), Long.MAX_VALUE), 0);
+
+        DeliveryReport report = verifier.report(job.getId()).get();
+        assertThat(report.getReceived(), equalTo(4L));
+        assertThat(report.getInvalid(), equalTo(3L));
+        assertThat(report.getUnique(), equalTo(1L));
+        assertThat(report.getHighestSequence(), equalTo(5L));
+        assertThat(report.getGaps(), equalTo(5L));
+
+        receive(event("other-instance-job", DeliveryVerifier.UNKNOWN_JOB_SEQUENCE_LIMIT), 0);
+        assertThat(verifier.report("other-instance-job").get().getInvalid(), equalTo(1L));
+    }
+
+    /**
+     * Ensure only the most recent jobs are tracked.
+     */
+    @Test
+    public void testRecord_EvictsOldest() {
+        for(int i = 0; i <= DeliveryVerifier.MAX_TRACKED_JOBS; i++) {
+            verifier.record("job-" + i, 0, 0, -1);
+        }
+        assertThat(verifier.report("job-0").isPresent(), equalTo(false));
+        assertThat(verifier.report("job-1").isPresent(), equalTo(true));
+        assertThat(verifier.report("job-" + DeliveryVerifier.MAX_TRACKED_JOBS).isPresent(), equalTo(true));
+    }
+
+    /**
+     * Ensure the end to end latency is measured from the record timestamp set when sent, and that records with a
+     * timestamp set by the broker are not measured.
+     */
+    @Test
+    public void testReceive_EndToEndLatency() {
+        Job job = jobRegistry.create(3);
+        long now = System.currentTimeMillis();
+        verifier.receive(List.of(
+                record(event(job.getId(), 0), 0, now - 50, TimestampType.CREATE_TIME),
+                record(event(job.getId(), 1), 0, now - 100, TimestampType.CREATE_TIME),
+                record(event(job.getId(), 2), 0, now - 100, TimestampType.LOG_APPEND_TIME)));
+
+        DeliveryReport report = verifier.report(job.getId()).get();
+        assertThat(report.getReceived(), equalTo(3L));
+        assertThat(report.getLatency().getCount(), equalTo(2L));
+        // Recorded to 3 significant digits.
+        assertThat(report.getLatency().getMinMs(), greaterThanOrEqualTo(49.9d));
+        assertThat(report.getLatency().getMaxMs(), greaterThanOrEqualTo(100d));
+        assertThat(meterRegistry.get(DeliveryVerifier.LATENCY).timer().count(), equalTo(2L));
+    }
+
+    private void receive(DemoOutboundEvent event, int partition) {
+        verifier.receive(List.of(record(event, partition, System.currentTimeMillis(), TimestampType.CREATE_TIME)));
+    }
+
+    private static ConsumerRecord<String, DemoOutboundEvent> record(DemoOutboundEvent event, int partition, long timestamp, TimestampType timestampType) {
+        return new ConsumerRecord<>("demo-outbound-topic", partition, 0L, timestamp, timestampType, 0, 0, null, event, new RecordHeaders(), Optional.empty());
+    }
+
+    private static DemoOutboundEvent event(String jobId, long sequence) {
+        return DemoOutboundEvent.builder().name("Abcdefgh").jobId(jobId).sequence(sequence).build();
+    }
+}
@@ -1,5 +1,14 @@
 package demo.kafka.controller;
 
+import demo.kafka.job.Job;
+import demo.kafka.job.JobProgressPublisher;
+import demo.kafka.job.JobRegistry;
+import demo.kafka.producer.CircuitBreaker;
+import demo.kafka.producer.CircuitBreakerOpenException;
+import demo.kafka.rest.api.JobStatus;
+import demo.kafka.rest.api.KeyStrategy;
+import demo.kafka.rest.api.PayloadDistribution;
+import demo.kafka.rest.api.PayloadSize;
 import demo.kafka.rest.api.TriggerEventsRequest;
 import demo.kafka.service.DemoService;
 import demo.kafka.util.TestData;
@@ -7,25 +16,38 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class DemoControllerTest {
 
     private DemoService serviceMock;
+    private JobRegistry jobRegistry;
+    private JobProgressPublisher publisherMock;
     private DemoController controller;
 
     @BeforeEach
     public void setUp() {
         serviceMock = mock(DemoService.class);
-        controller = new DemoController(serviceMock);
+        jobRegistry = new JobRegistry();
+        publisherMock = mock(JobProgressPublisher.class);
+        controller = new DemoController(serviceMock, jobRegistry, publisherMock);
     }
 
     /**
@@ -36,7 +58,8 @@ public class DemoControllerTest {
         TriggerEventsRequest request = TestData.buildTriggerEventsRequest(10);
         ResponseEntity response = controller.trigger(request, false);
         assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
-        verify(serviceMock, times(1)).triggerSync(request);
+        assertThat(jobRegistry.get((String)response.getBody()).isPresent(), equalTo(true));
+        verify(serviceMock, times(1)).triggerSync(any(Job.class), eq(request));
     }
 
     /**
@@ -47,7 +70,38 @@ public class DemoControllerTest {
         TriggerEventsRequest request = TestData.buildTriggerEventsRequest(10);
         ResponseEntity response = controller.trigger(request, true);
         assertThat(response.getStatusCode(), equalTo(HttpStatus.ACCEPTED));
-        verify(serviceMock, times(1)).triggerAsync(request);
+        assertThat(response.getHeaders().getLocation().toString(), equalTo("/v1/demo/jobs/" + response.getBody()));
+        verify(serviceMock, times(1)).triggerAsync(any(Job.class), eq(request));
+    }
+
+    /**
+     * If the async trigger is rejected by the executor, its job is failed and service unavailable is returned.
+     */
+    @Test
+    public void testTrigger_Async_Rejected() throws Exception {
+        TriggerEventsRequest request = TestData.buildTriggerEventsRequest(10);
+        Job[] job = new Job[1];
+        doAnswer(invocation -> {
+            job[0] = invocation.getArgument(0);
+            throw new TaskRejectedException("Executor saturated");
+        }).when(serviceMock).triggerAsync(any(Job.class), eq(request));
+
+        ResponseEntity response = controller.trigger(request, true);
+
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(job[0].getStatus(), equalTo(Job.Status.FAILED));
+        assertThat(job[0].toStatus().getError(), equalTo("Executor saturated"));
+    }
+
+    /**
+     * If the circuit breaker is open, service unavailable is returned.
+     */
+    @Test
+    public void testTrigger_Sync_CircuitBreakerOpen() throws Exception {
+        TriggerEventsRequest request = TestData.buildTriggerEventsRequest(10);
+        doThrow(new CircuitBreakerOpenException(CircuitBreaker.State.OPEN)).when(serviceMock).triggerSync(any(Job.class), eq(request));
+        ResponseEntity response = controller.trigger(request, false);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.SERVICE_UNAVAILABLE));
     }
 
     /**
@@ -56,11 +110,11 @@ public class DemoControllerTest {
     @Test
     public void testTrigger_Sync_ServiceThrowsException() throws Exception{
         TriggerEventsRequest request = TestData.buildTriggerEventsRequest(10);
-        doThrow(new Exception("Service failure")).when(serviceMock).triggerSync(request);
+        doThrow(new Exception("Service failure")).when(serviceMock).triggerSync(any(Job.class), eq(request));
         ResponseEntity response = controller.trigger(request, false);
         assertThat(response.getStatusCode(), equalTo(HttpStatus.INTERNAL_SERVER_ERROR));
         assertThat(response.getBody(), equalTo("Service failure"));
-        verify(serviceMock, times(1)).triggerSync(request);
+        verify(serviceMock, times(1)).triggerSync(any(Job.class), eq(request));
     }
 
     @ParameterizedTest
@@ -74,4 +128,104 @@ public class DemoControllerTest {
         ResponseEntity response = controller.trigger(request, true);
         assertThat(response.getStatusCode().value(), equalTo(expectedHttpStatusCode));
     }
+
+    @ParameterizedTest
+    @CsvSource(value = {"NULL, NULL, 202",
+                        "100, NULL, 202",
+                        "100, 10, 202",
+                        "0, NULL, 400",
+                        "100, -1, 400",
+                        }, nullValues = "NULL")
+    void testTrigger_RateValidation(Integer targetRate, Integer rampUpSeconds, Integer expectedHttpStatusCode) {
+        TriggerEventsRequest request = TriggerEventsRequest.builder()
+                .numberOfEvents(10)
+                .targetRate(targetRate)
+                .rampUpSeconds(rampUpSeconds)
+                .build();
+        ResponseEntity response = controller.trigger(request, true);
+        assertThat(response.getStatusCode().value(), equalTo(expectedHttpStatusCode));
+    }
+
+    @ParameterizedTest
+    @CsvSource(value = {"NULL, NULL, 202",
+                        "RANDOM, NULL, 202",
+                        "FIXED, 5, 202",
+                        "FIXED, NULL, 400",
+                        "FIXED, 0, 400",
+                        }, nullValues = "NULL")
+    void testTrigger_KeyValidation(KeyStrategy keyStrategy, Integer numberOfKeys, Integer expectedHttpStatusCode) {
+        TriggerEventsRequest request = TriggerEventsRequest.builder()
+                .numberOfEvents(10)
+                .keyStrategy(keyStrategy)
+                .numberOfKeys(numberOfKeys)
+                .build();
+        ResponseEntity response = controller.trigger(request, true);
+        assertThat(response.getStatusCode().value(), equalTo(expectedHttpStatusCode));
+    }
+
+    @ParameterizedTest
+    @CsvSource(value = {"FIXED, 1024, NULL, NULL, 202",
+                        "UNIFORM, NULL, 1024, 10240, 202",
+                        "LOG_UNIFORM, NULL, 1024, 1032192, 202",
+                        "FIXED, NULL, NULL, NULL, 400",
+                        "FIXED, 1032193, NULL, NULL, 400",
+                        "UNIFORM, NULL, 10240, 1024, 400",
+                        "LOG_UNIFORM, NULL, -1, 1024, 400",
+                        "NULL, 1024, NULL, NULL, 400",
+                        }, nullValues = "NULL")
+    void testTrigger_PayloadSizeValidation(PayloadDistribution distribution, Integer bytes, Integer minBytes, Integer maxBytes, Integer expectedHttpStatusCode) {
+        TriggerEventsRequest request = TriggerEventsRequest.builder()
+                .numberOfEvents(10)
+                .payloadSize(PayloadSize.builder().distribution(distribution).bytes(bytes).minBytes(minBytes).maxBytes(maxBytes).build())
+                .build();
+        ResponseEntity response = controller.trigger(request, true);
+        assertThat(response.getStatusCode().value(), equalTo(expectedHttpStatusCode));
+    }
+
+    /**
+     * Ensure that a streamed trigger is passed on to the service to run asynchronously, streaming the job progress.
+     */
+    @Test
+    public void testTriggerStream_Success() throws Exception {
+        TriggerEventsRequest request = TestData.buildTriggerEventsRequest(10);
+        SseEmitter emitter = new SseEmitter();
+        when(publisherMock.stream(any(Job.class), eq(500L))).thenReturn(emitter);
+        ResponseEntity<SseEmitter> response = controller.triggerStream(request, 500L);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getBody(), sameInstance(emitter));
+        verify(serviceMock, times(1)).triggerAsync(any(Job.class), eq(request));
+    }
+
+    /**
+     * Ensure that an invalid streamed trigger is rejected without streaming.
+     */
+    @Test
+    public void testTriggerStream_Invalid() throws Exception {
+        TriggerEventsRequest request = TestData.buildTriggerEventsRequest(null);
+        ResponseEntity<SseEmitter> response = controller.triggerStream(request, 500L);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.BAD_REQUEST));
+        verify(publisherMock, never()).stream(any(Job.class), anyLong());
+        verify(serviceMock, never()).triggerAsync(any(Job.class), any());
+    }
+
+    /**
+     * Ensure the status of a known job is returned.
+     */
+    @Test
+    public void testGetJob_Found() {
+        Job job = jobRegistry.create(10);
+        ResponseEntity<JobStatus> response = controller.getJob(job.getId());
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getBody().getJobId(), equalTo(job.getId()));
+        assertThat(response.getBody().getStatus(), equalTo("PENDING"));
+    }
+
+    /**
+     * Ensure a not found is returned for an unknown job.
+     */
+    @Test
+    public void testGetJob_NotFound() {
+        ResponseEntity<JobStatus> response = controller.getJob("unknown");
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+    }
 }
@@ -0,0 +1,82 @@
+package demo.kafka.controller;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import demo.kafka.job.Job;
+import demo.kafka.job.JobRegistry;
+import demo.kafka.producer.ProducerMetrics;
+import demo.kafka.rest.api.LatencyReport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class LatencyControllerTest {
+
+    private JobRegistry jobRegistry;
+    private ProducerMetrics producerMetrics;
+    private LatencyController controller;
+
+    @BeforeEach
+    public void setUp() {
+        jobRegistry = new JobRegistry();
+        producerMetrics = new ProducerMetrics(new SimpleMeterRegistry());
+        controller = new LatencyController(jobRegistry, producerMetrics);
+    }
+
+    /**
+     * Ensure the latencies of every send are reported until reset.
+     */
+    @Test
+    public void testGetLatency_UntilReset() {
+        producerMetrics.sendCompleted(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5), null, null);
+
+        assertThat(controller.getLatency().getBody().getCount(), equalTo(1L));
+
+        ResponseEntity<Void> response = controller.resetLatency();
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NO_CONTENT));
+        assertThat(controller.getLatency().getBody().getCount(), equalTo(0L));
+    }
+
+    /**
+     * Ensure the latencies of the job's sends are reported, or a 404 NOT FOUND if there is no such job.
+     */
+    @Test
+    public void testGetJobLatency() {
+        Job job = jobRegistry.create(2);
+        job.start("IDEMPOTENT", false);
+        job.onLatency(TimeUnit.MILLISECONDS.toNanos(3));
+        job.onLatency(TimeUnit.MILLISECONDS.toNanos(4));
+
+        ResponseEntity<LatencyReport> response = controller.getJobLatency(job.getId());
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getBody().getCount(), equalTo(2L));
+        assertThat(response.getBody().getCorrectedForCoordinatedOmission(), equalTo(false));
+
+        assertThat(controller.getJobLatency("unknown").getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Ensure the reports of separate jobs are merged, and that a histogram that is not valid is rejected.
+     */
+    @Test
+    public void testMerge() {
+        Job healthy = jobRegistry.create(1);
+        healthy.onLatency(TimeUnit.MILLISECONDS.toNanos(2));
+        Job slow = jobRegistry.create(1);
+        slow.onLatency(TimeUnit.MILLISECONDS.toNanos(60));
+
+        ResponseEntity<LatencyReport> response = controller.merge(List.of(
+                controller.getJobLatency(healthy.getId()).getBody().getHistogram(),
+                controller.getJobLatency(slow.getId()).getBody().getHistogram()));
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getBody().getCount(), equalTo(2L));
+
+        assertThat(controller.merge(List.of("not a histogram")).getStatusCode(), equalTo(HttpStatus.BAD_REQUEST));
+    }
+}
@@ -0,0 +1,107 @@
+package demo.kafka.controller;
+
+import demo.kafka.job.Job;
+import demo.kafka.job.JobRegistry;
+import demo.kafka.rest.api.LoadReport;
+import demo.kafka.rest.api.LoadScenarioRequest;
+import demo.kafka.rest.api.PayloadDistribution;
+import demo.kafka.rest.api.PayloadSize;
+import demo.kafka.service.LoadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LoadControllerTest {
+
+    private LoadService serviceMock;
+    private LoadController controller;
+
+    @BeforeEach
+    public void setUp() {
+        serviceMock = mock(LoadService.class);
+        controller = new LoadController(serviceMock, new JobRegistry());
+    }
+
+    /**
+     * Ensure the scenario is run, returning its report once complete.
+     */
+    @Test
+    public void testLoad_Success() {
+        LoadScenarioRequest scenario = LoadScenarioRequest.builder().numberOfEvents(100).concurrency(4).build();
+        LoadReport report = LoadReport.builder().build();
+        when(serviceMock.run(any(Job.class), eq(scenario))).thenReturn(report);
+
+        ResponseEntity<LoadReport> response = controller.load(scenario);
+
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getBody(), sameInstance(report));
+        verify(serviceMock, times(1)).run(any(Job.class), eq(scenario));
+    }
+
+    /**
+     * Ensure a scenario that fails returns an internal server error with its report.
+     */
+    @Test
+    public void testLoad_Failed() {
+        LoadScenarioRequest scenario = LoadScenarioRequest.builder().numberOfEvents(100).build();
+        when(serviceMock.run(any(Job.class), eq(scenario))).thenAnswer(invocation -> {
+            invocation.<Job>getArgument(0).fail(new Exception("Send failed"));
+            return LoadReport.builder().error("Send failed").build();
+        });
+
+        ResponseEntity<LoadReport> response = controller.load(scenario);
+
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.INTERNAL_SERVER_ERROR));
+        assertThat(response.getBody().getError(), equalTo("Send failed"));
+    }
+
+    /**
+     * Ensure a scenario rejected as there are not enough load workers free returns a service unavailable, with its job
+     * failed.
+     */
+    @Test
+    public void testLoad_Rejected() {
+        LoadScenarioRequest scenario = LoadScenarioRequest.builder().numberOfEvents(100).concurrency(4).build();
+        when(serviceMock.run(any(Job.class), eq(scenario))).thenThrow(new TaskRejectedException("Not enough load workers free"));
+
+        ResponseEntity<LoadReport> response = controller.load(scenario);
+
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(response.getBody().getStatus(), equalTo(Job.Status.FAILED.name()));
+        assertThat(response.getBody().getError(), equalTo("Not enough load workers free"));
+    }
+
+    /**
+     * Ensure invalid scenarios are rejected without being run.
+     */
+    @Test
+    public void testLoad_Invalid() {
+        assertBadRequest(LoadScenarioRequest.builder().build());
+        assertBadRequest(LoadScenarioRequest.builder().numberOfEvents(10).concurrency(0).build());
+        assertBadRequest(LoadScenarioRequest.builder().numberOfEvents(10).concurrency(LoadController.MAX_CONCURRENCY + 1).build());
+        assertBadRequest(LoadScenarioRequest.builder().numberOfEvents(10).targetRate(0).build());
+        assertBadRequest(LoadScenarioRequest.builder().numberOfEvents(10).concurrency(4).targetRate(3).build());
+        assertBadRequest(LoadScenarioRequest.builder().numberOfEvents(10)
+                .payloadSize(PayloadSize.builder().distribution(PayloadDistribution.FIXED).build()).build());
+        assertBadRequest(LoadScenarioRequest.builder().numberOfEvents(10)
+                .payloadSize(PayloadSize.builder().distribution(PayloadDistribution.UNIFORM).minBytes(100).maxBytes(10).build()).build());
+        verify(serviceMock, never()).run(any(), any());
+    }
+
+    private void assertBadRequest(LoadScenarioRequest scenario) {
+        assertThat(controller.load(scenario).getStatusCode(), equalTo(HttpStatus.BAD_REQUEST));
+    }
+}
@@ -0,0 +1,97 @@
+package demo.kafka.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class DemoOutboundEventSerializerTest {
+
+    private ObjectMapper objectMapper;
+    private DemoOutboundEventSerializer serializer;
+
+    @BeforeEach
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        serializer = new DemoOutboundEventSerializer();
+    }
+
+    /**
+     * Ensure the serialized event is the same JSON as written by Jackson.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"Abcdefgh", "", "quote\"back\\slash", "tab\tnew\nline\u0001", "café € 😀"})
+    public void testSerialize_MatchesJackson(String name) throws Exception {
+        DemoOutboundEvent event = DemoOutboundEvent.builder().name(name).build();
+        assertThat(new String(serializer.serialize("topic", event), "UTF-8"), equalTo(objectMapper.writeValueAsString(event)));
+    }
+
+    /**
+     * Ensure the job id and sequence are the same JSON as written by Jackson.
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {0L, 7L, 1234567890L, -42L, Long.MAX_VALUE, Long.MIN_VALUE})
+    public void testSerialize_JobIdAndSequence(long sequence) throws Exception {
+        DemoOutboundEvent event = DemoOutboundEvent.builder().name("Abcdefgh").jobId("8f14e45f-ceea-467e-a5b2-3f1c1c7a0e1b").sequence(sequence).build();
+        assertThat(new String(serializer.serialize("topic", event), "UTF-8"), equalTo(objectMapper.writeValueAsString(event)));
+    }
+
+    /**
+     * Ensure a null name is written as JSON null.
+     */
+    @Test
+    public void testSerialize_NullName() throws Exception {
+        DemoOutboundEvent event = DemoOutboundEvent.builder().build();
+        assertThat(new String(serializer.serialize("topic", event), "UTF-8"), equalTo(objectMapper.writeValueAsString(event)));
+    }
+
+    /**
+     * Ensure a payload is written after the sequence as Jackson does, and left out when not present.
+     */
+    @Test
+    public void testSerialize_Payload() throws Exception {
+        DemoOutboundEvent event = DemoOutboundEvent.builder().name("Abcdefgh").jobId("job-1").sequence(1L).payload("0123456789").build();
+        assertThat(new String(serializer.serialize("topic", event), "UTF-8"), equalTo(objectMapper.writeValueAsString(event)));
+        event.setPayload(null);
+        assertThat(new String(serializer.serialize("topic", event), "UTF-8"), equalTo("{\"name\":\"Abcdefgh\",\"jobId\":\"job-1\",\"sequence\":1}"));
+    }
+
+    /**
+     * Ensure a null event is serialized to null.
+     */
+    @Test
+    public void testSerialize_NullEvent() {
+        assertThat(serializer.serialize("topic", null), nullValue());
+    }
+
+    /**
+     * Ensure the buffer grows to serialize events larger than its initial size, and the serialized event deserializes
+     * back to the original.
+     */
+    @Test
+    public void testSerialize_LargeEvent() throws Exception {
+        DemoOutboundEvent event = DemoOutboundEvent.builder().name("x".repeat(10000)).build();
+        assertThat(objectMapper.readValue(serializer.serialize("topic", event), DemoOutboundEvent.class), equalTo(event));
+    }
+
+    /**
+     * Ensure a payload of about 1MB, with escapes, is the same JSON as written by Jackson, with the buffer grown to the
+     * encoded length rather than the worst case, and not retained beyond the record.
+     */
+    @Test
+    public void testSerialize_LargePayloadNotRetained() throws Exception {
+        DemoOutboundEvent event = DemoOutboundEvent.builder().name("Abcdefgh").jobId("job-1").sequence(1L)
+                .payload("x".repeat(1_000_000) + "quote\"tab\t€").build();
+        assertThat(new String(serializer.serialize("topic", event), "UTF-8"), equalTo(objectMapper.writeValueAsString(event)));
+        assertThat(DemoOutboundEventSerializer.retainedBufferSize(), lessThanOrEqualTo(64 * 1024));
+
+        DemoOutboundEvent small = DemoOutboundEvent.builder().name("Abcdefgh").build();
+        assertThat(new String(serializer.serialize("topic", small), "UTF-8"), equalTo(objectMapper.writeValueAsString(small)));
+    }
+}
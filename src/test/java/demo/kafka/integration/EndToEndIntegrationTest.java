@@ -5,6 +5,13 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import demo.kafka.KafkaDemoConfiguration;
 import demo.kafka.event.DemoOutboundEvent;
+import demo.kafka.rest.api.DeliveryReport;
+import demo.kafka.rest.api.JobStatus;
+import demo.kafka.rest.api.LatencyReport;
+import demo.kafka.rest.api.LoadReport;
+import demo.kafka.rest.api.LoadScenarioRequest;
+import demo.kafka.rest.api.PayloadDistribution;
+import demo.kafka.rest.api.PayloadSize;
 import demo.kafka.rest.api.TriggerEventsRequest;
 import demo.kafka.util.TestData;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +35,7 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 
 @Slf4j
@@ -123,6 +131,76 @@ public class EndToEndIntegrationTest {
         ResponseEntity<String> response = restTemplate.postForEntity("/v1/demo/trigger?async=true", request, String.class);
         assertThat(response.getStatusCode(), equalTo(HttpStatus.ACCEPTED));
 
+        Awaitility.await().atMost(3, TimeUnit.SECONDS).pollDelay(100, TimeUnit.MILLISECONDS)
+                .until(testReceiver.counter::get, equalTo(totalMessages));
+
+        Awaitility.await().atMost(3, TimeUnit.SECONDS).pollDelay(100, TimeUnit.MILLISECONDS)
+                .until(() -> restTemplate.getForObject(response.getHeaders().getLocation(), JobStatus.class).getStatus(), equalTo("COMPLETED"));
+        JobStatus jobStatus = restTemplate.getForObject("/v1/demo/jobs/" + response.getBody(), JobStatus.class);
+        assertThat(jobStatus.getAcked(), equalTo((long) totalMessages));
+        assertThat(jobStatus.getFailed(), equalTo(0L));
+
+        // Every acknowledged send has its latency recorded against the job.
+        LatencyReport latencyReport = restTemplate.getForObject("/v1/demo/jobs/" + response.getBody() + "/latency", LatencyReport.class);
+        assertThat(latencyReport.getCount(), equalTo((long) totalMessages));
+
+        // The delivery verifier consumes every event once, in order.
+        Awaitility.await().atMost(10, TimeUnit.SECONDS).pollDelay(100, TimeUnit.MILLISECONDS)
+                .until(() -> restTemplate.getForEntity("/v1/demo/jobs/" + response.getBody() + "/delivery", DeliveryReport.class).getBody(),
+                        report -> report != null && report.getUnique() == totalMessages);
+        DeliveryReport deliveryReport = restTemplate.getForObject("/v1/demo/jobs/" + response.getBody() + "/delivery", DeliveryReport.class);
+        assertThat(deliveryReport.getMissing(), equalTo(0L));
+        assertThat(deliveryReport.getDuplicates(), equalTo(0L));
+        assertThat(deliveryReport.getGaps(), equalTo(0L));
+        assertThat(deliveryReport.getReordered(), equalTo(0L));
+        assertThat(deliveryReport.getLatency().getCount(), equalTo((long) totalMessages));
+    }
+
+    /**
+     * Send in a REST request to trigger emitting multiple outbound events, streaming the progress of the job.
+     *
+     * The stream ends with a complete event once all the outbound events have been acknowledged.
+     *
+     * This integration test does not utilise Conduktor Gateway.  The application connects directly to Kafka.
+     */
+    @Test
+    public void testTriggerStream_Success() throws Exception {
+        int totalMessages = 10;
+
+        TriggerEventsRequest request = TestData.buildTriggerEventsRequest(totalMessages);
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/v1/demo/trigger/stream?intervalMs=50", request, String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getBody(), containsString("event:complete"));
+        assertThat(response.getBody(), containsString("\"status\":\"COMPLETED\""));
+        assertThat(response.getBody(), containsString("\"acked\":" + totalMessages));
+
+        Awaitility.await().atMost(3, TimeUnit.SECONDS).pollDelay(100, TimeUnit.MILLISECONDS)
+                .until(testReceiver.counter::get, equalTo(totalMessages));
+    }
+
+    /**
+     * Send in a REST request to run a load scenario across multiple workers, with a payload on each event.
+     *
+     * The scenario completes before the call returns, reporting the latency of every send.
+     *
+     * This integration test does not utilise Conduktor Gateway.  The application connects directly to Kafka.
+     */
+    @Test
+    public void testLoad_Success() throws Exception {
+        int totalMessages = 20;
+
+        LoadScenarioRequest scenario = LoadScenarioRequest.builder()
+                .numberOfEvents(totalMessages)
+                .concurrency(2)
+                .payloadSize(PayloadSize.builder().distribution(PayloadDistribution.UNIFORM).minBytes(100).maxBytes(1000).build())
+                .build();
+
+        ResponseEntity<LoadReport> response = restTemplate.postForEntity("/v1/demo/load", scenario, LoadReport.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getBody().getAcked(), equalTo((long) totalMessages));
+        assertThat(response.getBody().getLatency().getCount(), equalTo((long) totalMessages));
+
         Awaitility.await().atMost(3, TimeUnit.SECONDS).pollDelay(100, TimeUnit.MILLISECONDS)
                 .until(testReceiver.counter::get, equalTo(totalMessages));
     }
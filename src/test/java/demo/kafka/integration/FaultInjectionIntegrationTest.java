@@ -0,0 +1,178 @@
+package demo.kafka.integration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+import demo.kafka.KafkaDemoConfiguration;
+import demo.kafka.proxy.FaultInjectingProxy;
+import demo.kafka.rest.api.DeliveryReport;
+import demo.kafka.rest.api.JobStatus;
+import demo.kafka.rest.api.TriggerEventsRequest;
+import demo.kafka.util.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.protocol.Errors;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * Each test sends in a REST request to trigger sending events through the FaultInjectingProxy in front of the embedded
+ * broker, which simulates the same faults as Conduktor Gateway does for ResilienceCT, at far higher event counts.
+ *
+ * For retryable faults the test asserts every event is acknowledged, and consumed by the delivery verifier once, so
+ * the producer retries left neither gaps nor duplicates.  For not retryable faults the test asserts the error returned.
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = { KafkaDemoConfiguration.class } )
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@ActiveProfiles("test")
+@EmbeddedKafka(controlledShutdown = true, topics = { "demo-outbound-topic" })
+public class FaultInjectionIntegrationTest {
+
+    private static final int NUMBER_OF_EVENTS = 10_000;
+
+    private static final int FAILURE_RATE_PERCENTAGE = 20;
+
+    private static FaultInjectingProxy proxy;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    /**
+     * Points the application at the proxy, started on first use once the embedded broker is up.
+     */
+    @DynamicPropertySource
+    static void kafkaProperties(DynamicPropertyRegistry registry) {
+        registry.add("kafka.bootstrap-servers", () -> proxy().getBootstrapServers());
+    }
+
+    private static synchronized FaultInjectingProxy proxy() {
+        if(proxy == null) {
+            try {
+                proxy = FaultInjectingProxy.start(System.getProperty(EmbeddedKafkaBroker.SPRING_EMBEDDED_KAFKA_BROKERS));
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return proxy;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        proxy.reset();
+    }
+
+    @AfterAll
+    public static void stopProxy() throws IOException {
+        proxy.close();
+        proxy = null;
+    }
+
+    /**
+     * The proxy routes the requests straight through to the broker.
+     */
+    @Test
+    public void testFaultInjection_Healthy() {
+        String jobId = triggerAndAssertDelivered();
+
+        assertThat(proxy.getInjectedErrors(), equalTo(0L));
+        log.info("Healthy - job: {}", jobId);
+    }
+
+    /**
+     * The proxy simulates a leader election, answering 20% of the produce requests with a not leader or follower
+     * error.  This results in a retryable exception, with the producer refreshing its metadata and retrying until
+     * success.
+     */
+    @Test
+    public void testFaultInjection_LeaderElection() {
+        proxy.simulateLeaderElection(FAILURE_RATE_PERCENTAGE);
+
+        triggerAndAssertDelivered();
+
+        assertThat(proxy.getInjectedErrors(), greaterThan(0L));
+    }
+
+    /**
+     * The proxy simulates not enough replicas error on 20% of the produce requests.  This results in a retryable
+     * exception, with the producer retrying until success.
+     */
+    @Test
+    public void testFaultInjection_NotEnoughReplicas() {
+        proxy.simulateBrokenBroker(FAILURE_RATE_PERCENTAGE, Errors.NOT_ENOUGH_REPLICAS);
+
+        triggerAndAssertDelivered();
+
+        assertThat(proxy.getInjectedErrors(), greaterThan(0L));
+    }
+
+    /**
+     * The proxy simulates a slow broker, adding a latency of between 20 and 100 milliseconds to every produce request.
+     */
+    @Test
+    public void testFaultInjection_SlowBroker() {
+        proxy.simulateSlowBroker(100, 20, 100);
+
+        triggerAndAssertDelivered();
+
+        assertThat(proxy.getDelayedRequests(), greaterThan(0L));
+    }
+
+    /**
+     * The proxy simulates invalid required acks error on 20% of the produce requests.
+     *
+     * This results in a not retryable exception on message produce.  The call to trigger event sending is made with the
+     * async flag set to false, so that the 500 error returned can be asserted.
+     */
+    @Test
+    public void testFaultInjection_InvalidRequiredAcks() {
+        proxy.simulateBrokenBroker(FAILURE_RATE_PERCENTAGE, Errors.INVALID_REQUIRED_ACKS);
+
+        TriggerEventsRequest request = TestData.buildTriggerEventsRequest(NUMBER_OF_EVENTS);
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/v1/demo/trigger?async=false", request, String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.INTERNAL_SERVER_ERROR));
+        assertThat(response.getBody(), containsString("org.apache.kafka.common.errors.InvalidRequiredAcksException"));
+    }
+
+    /**
+     * Triggers the events synchronously, asserting every event is acknowledged and then consumed once, in order.
+     */
+    private String triggerAndAssertDelivered() {
+        TriggerEventsRequest request = TestData.buildTriggerEventsRequest(NUMBER_OF_EVENTS);
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/v1/demo/trigger?async=false", request, String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+
+        JobStatus jobStatus = restTemplate.getForObject("/v1/demo/jobs/" + response.getBody(), JobStatus.class);
+        assertThat(jobStatus.getAcked(), equalTo((long) NUMBER_OF_EVENTS));
+        assertThat(jobStatus.getFailed(), equalTo(0L));
+
+        Awaitility.await().atMost(30, TimeUnit.SECONDS).pollDelay(100, TimeUnit.MILLISECONDS)
+                .until(() -> restTemplate.getForEntity("/v1/demo/jobs/" + response.getBody() + "/delivery", DeliveryReport.class).getBody(),
+                        report -> report != null && report.getUnique() == NUMBER_OF_EVENTS);
+        DeliveryReport deliveryReport = restTemplate.getForObject("/v1/demo/jobs/" + response.getBody() + "/delivery", DeliveryReport.class);
+        assertThat(deliveryReport.getMissing(), equalTo(0L));
+        assertThat(deliveryReport.getDuplicates(), equalTo(0L));
+        assertThat(deliveryReport.getGaps(), equalTo(0L));
+        return response.getBody();
+    }
+}
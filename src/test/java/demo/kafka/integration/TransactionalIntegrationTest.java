@@ -0,0 +1,107 @@
+package demo.kafka.integration;
+
+import java.util.concurrent.TimeUnit;
+
+import demo.kafka.KafkaDemoConfiguration;
+import demo.kafka.rest.api.DeliveryReport;
+import demo.kafka.rest.api.JobStatus;
+import demo.kafka.rest.api.LoadReport;
+import demo.kafka.rest.api.LoadScenarioRequest;
+import demo.kafka.rest.api.TriggerEventsRequest;
+import demo.kafka.util.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = { KafkaDemoConfiguration.class } )
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "kafka.producer.mode=TRANSACTIONAL",
+        "kafka.producer.transactionBatchSize=4",
+        "kafka.producer.poolSize=2"
+})
+@EmbeddedKafka(controlledShutdown = true, topics = { "demo-outbound-topic" },
+        brokerProperties = { "transaction.state.log.replication.factor=1", "transaction.state.log.min.isr=1" })
+public class TransactionalIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    /**
+     * Send in a REST request to trigger emitting multiple outbound events in the TRANSACTIONAL mode.
+     *
+     * The events are sent in transactions of 4 events across a pool of 2 producers, with the delivery verifier
+     * consuming only the committed events.
+     *
+     * This integration test does not utilise Conduktor Gateway.  The application connects directly to Kafka.
+     */
+    @Test
+    public void testTrigger_Transactional() throws Exception {
+        int totalMessages = 10;
+
+        TriggerEventsRequest request = TestData.buildTriggerEventsRequest(totalMessages);
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/v1/demo/trigger?async=false", request, String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+
+        JobStatus jobStatus = restTemplate.getForObject("/v1/demo/jobs/" + response.getBody(), JobStatus.class);
+        assertThat(jobStatus.getStatus(), equalTo("COMPLETED"));
+        assertThat(jobStatus.getProducerMode(), equalTo("TRANSACTIONAL"));
+        assertThat(jobStatus.getAcked(), equalTo((long) totalMessages));
+        assertThat(jobStatus.getTransactions(), equalTo(3L));
+
+        Awaitility.await().atMost(10, TimeUnit.SECONDS).pollDelay(100, TimeUnit.MILLISECONDS)
+                .until(() -> restTemplate.getForEntity("/v1/demo/jobs/" + response.getBody() + "/delivery", DeliveryReport.class).getBody(),
+                        report -> report != null && report.getUnique() == totalMessages);
+        DeliveryReport deliveryReport = restTemplate.getForObject("/v1/demo/jobs/" + response.getBody() + "/delivery", DeliveryReport.class);
+        assertThat(deliveryReport.getMissing(), equalTo(0L));
+        assertThat(deliveryReport.getDuplicates(), equalTo(0L));
+    }
+
+    /**
+     * Send in a REST request to run a load scenario in the TRANSACTIONAL mode.
+     *
+     * Each of the 2 workers sends its 5 events in transactions of up to 4 events, so the events are sent in at least 4
+     * transactions, with the delivery verifier consuming only the committed events.
+     */
+    @Test
+    public void testLoad_Transactional() throws Exception {
+        int totalMessages = 10;
+
+        LoadScenarioRequest request = LoadScenarioRequest.builder()
+                .numberOfEvents(totalMessages)
+                .concurrency(2)
+                .build();
+
+        ResponseEntity<LoadReport> response = restTemplate.postForEntity("/v1/demo/load", request, LoadReport.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getBody().getAcked(), equalTo((long) totalMessages));
+
+        String jobId = response.getBody().getJobId();
+        JobStatus jobStatus = restTemplate.getForObject("/v1/demo/jobs/" + jobId, JobStatus.class);
+        assertThat(jobStatus.getProducerMode(), equalTo("TRANSACTIONAL"));
+        assertThat(jobStatus.getTransactions(), greaterThanOrEqualTo(4L));
+
+        Awaitility.await().atMost(10, TimeUnit.SECONDS).pollDelay(100, TimeUnit.MILLISECONDS)
+                .until(() -> restTemplate.getForEntity("/v1/demo/jobs/" + jobId + "/delivery", DeliveryReport.class).getBody(),
+                        report -> report != null && report.getUnique() == totalMessages);
+        DeliveryReport deliveryReport = restTemplate.getForObject("/v1/demo/jobs/" + jobId + "/delivery", DeliveryReport.class);
+        assertThat(deliveryReport.getMissing(), equalTo(0L));
+        assertThat(deliveryReport.getDuplicates(), equalTo(0L));
+    }
+}
@@ -0,0 +1,26 @@
+package demo.kafka.job;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class JobProgressLoggerTest {
+
+    /**
+     * Ensure only the progress of running jobs is logged.
+     */
+    @Test
+    public void testLogProgress_RunningJobs() {
+        JobRegistry jobRegistry = new JobRegistry();
+        jobRegistry.create(10);
+        jobRegistry.create(10).start("IDEMPOTENT", false);
+        Job completed = jobRegistry.create(10);
+        completed.start("IDEMPOTENT", false);
+        completed.complete();
+        JobProgressLogger logger = new JobProgressLogger(jobRegistry, 0);
+
+        assertThat(logger.logProgress(), equalTo(1));
+        logger.destroy();
+    }
+}
@@ -0,0 +1,133 @@
+package demo.kafka.job;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+public class JobProgressPublisherTest {
+
+    private JobProgressPublisher publisher;
+    private JobRegistry jobRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        publisher = new JobProgressPublisher();
+        jobRegistry = new JobRegistry();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        publisher.destroy();
+    }
+
+    /**
+     * Ensure progress events are streamed while the job runs, ending with a complete event once the job is done.
+     */
+    @Test
+    public void testStream_Completes() throws Exception {
+        Job job = jobRegistry.create(10);
+        job.start("IDEMPOTENT", false);
+        CapturingEmitter emitter = new CapturingEmitter();
+        publisher.stream(job, emitter, 10);
+
+        Awaitility.await().atMost(3, TimeUnit.SECONDS).until(() -> emitter.events.size() > 1);
+        job.complete();
+        Awaitility.await().atMost(3, TimeUnit.SECONDS).until(() -> emitter.completed);
+
+        int sent = emitter.events.size();
+        assertThat(emitter.events.get(0), containsString("event:" + JobProgressPublisher.PROGRESS_EVENT));
+        assertThat(emitter.events.get(sent - 1), containsString("event:" + JobProgressPublisher.COMPLETE_EVENT));
+        Thread.sleep(50);
+        assertThat(emitter.events.size(), equalTo(sent));
+    }
+
+    /**
+     * Ensure streaming stops once the client has disconnected.
+     */
+    @Test
+    public void testStream_Disconnected() throws Exception {
+        Job job = jobRegistry.create(10);
+        job.start("IDEMPOTENT", false);
+        CapturingEmitter emitter = new CapturingEmitter();
+        emitter.disconnected = true;
+        publisher.stream(job, emitter, 10);
+
+        Awaitility.await().atMost(3, TimeUnit.SECONDS).until(() -> emitter.attempts > 0);
+        Thread.sleep(50);
+        assertThat(emitter.attempts, equalTo(1));
+        assertThat(emitter.completed, equalTo(false));
+    }
+
+    /**
+     * Ensure a slow client neither holds up the stream of another job, nor builds up a backlog of its own, with the
+     * ticks falling due while it is still sending dropped.
+     */
+    @Test
+    public void testStream_SlowClient() throws Exception {
+        Job slowJob = jobRegistry.create(10);
+        slowJob.start("IDEMPOTENT", false);
+        Job job = jobRegistry.create(10);
+        job.start("IDEMPOTENT", false);
+        CountDownLatch unblock = new CountDownLatch(1);
+        CapturingEmitter slowEmitter = new CapturingEmitter();
+        slowEmitter.blocked = unblock;
+        CapturingEmitter emitter = new CapturingEmitter();
+        publisher.stream(slowJob, slowEmitter, 10);
+        publisher.stream(job, emitter, 10);
+
+        Awaitility.await().atMost(3, TimeUnit.SECONDS).until(() -> emitter.events.size() > 5);
+        assertThat(slowEmitter.attempts, equalTo(1));
+
+        unblock.countDown();
+        Awaitility.await().atMost(3, TimeUnit.SECONDS).until(() -> slowEmitter.events.size() > 1);
+    }
+
+    /**
+     * Captures the events sent, rather than writing them to a response.
+     */
+    private static class CapturingEmitter extends SseEmitter {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private volatile boolean disconnected;
+        private volatile boolean completed;
+        private volatile int attempts;
+        private volatile CountDownLatch blocked;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            attempts++;
+            if(blocked != null) {
+                try {
+                    blocked.await();
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if(disconnected) {
+                throw new IOException("Broken pipe");
+            }
+            Set<ResponseBodyEmitter.DataWithMediaType> data = builder.build();
+            events.add(data.stream().map(item -> String.valueOf(item.getData())).collect(Collectors.joining()));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
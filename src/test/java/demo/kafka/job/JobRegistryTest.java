@@ -0,0 +1,89 @@
+package demo.kafka.job;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.SendResult;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.mockito.Mockito.mock;
+
+public class JobRegistryTest {
+
+    private JobRegistry jobRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        jobRegistry = new JobRegistry();
+    }
+
+    /**
+     * Ensure a created job can be retrieved by its id.
+     */
+    @Test
+    public void testCreate() {
+        Job job = jobRegistry.create(10);
+        assertThat(jobRegistry.get(job.getId()).get(), equalTo(job));
+        assertThat(job.getStatus(), equalTo(Job.Status.PENDING));
+    }
+
+    /**
+     * Ensure the oldest finished jobs are evicted once the retained limit is reached.
+     */
+    @Test
+    public void testCreate_EvictsOldest() {
+        Job oldest = jobRegistry.create(10);
+        oldest.complete();
+        Job newest = null;
+        for(int i = 0; i < JobRegistry.MAX_RETAINED_JOBS; i++) {
+            newest = jobRegistry.create(10);
+        }
+        assertThat(jobRegistry.get(oldest.getId()).isPresent(), equalTo(false));
+        assertThat(jobRegistry.get(newest.getId()).isPresent(), equalTo(true));
+    }
+
+    /**
+     * Ensure a job still running is not evicted, with the oldest finished job evicted in its place, and that the
+     * running job is evicted once it has finished.
+     */
+    @Test
+    public void testCreate_RetainsRunning() {
+        Job running = jobRegistry.create(10);
+        running.start("IDEMPOTENT", false);
+        Job finished = jobRegistry.create(10);
+        finished.complete();
+        for(int i = 0; i < JobRegistry.MAX_RETAINED_JOBS - 1; i++) {
+            jobRegistry.create(10).complete();
+        }
+        assertThat(jobRegistry.get(running.getId()).isPresent(), equalTo(true));
+        assertThat(jobRegistry.get(finished.getId()).isPresent(), equalTo(false));
+
+        running.complete();
+        jobRegistry.create(10);
+        assertThat(jobRegistry.get(running.getId()).isPresent(), equalTo(false));
+    }
+
+    /**
+     * Ensure the job status reflects the sends made.
+     */
+    @Test
+    public void testJobStatus() throws Exception {
+        Job job = jobRegistry.create(3);
+        job.start("IDEMPOTENT", false);
+        job.onSent();
+        job.onSent();
+        job.onSent();
+        job.onAcknowledged(mock(SendResult.class));
+        job.onAcknowledged(mock(SendResult.class));
+        job.onFailed(new RuntimeException("Failed"));
+        Thread.sleep(10);
+        job.complete();
+
+        assertThat(job.toStatus().getStatus(), equalTo("COMPLETED"));
+        assertThat(job.toStatus().getSent(), equalTo(3L));
+        assertThat(job.toStatus().getAcked(), equalTo(2L));
+        assertThat(job.toStatus().getFailed(), equalTo(1L));
+        assertThat(job.toStatus().getEventsPerSecond(), greaterThan(0d));
+    }
+}
@@ -0,0 +1,173 @@
+package demo.kafka.performance;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import demo.kafka.KafkaDemoConfiguration;
+import demo.kafka.rest.api.JobStatus;
+import demo.kafka.rest.api.LoadReport;
+import demo.kafka.rest.api.LoadScenarioRequest;
+import demo.kafka.util.TestData;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Runs fixed workloads through the REST API against the embedded broker, failing if the throughput or the ack latency
+ * regresses beyond the baseline in performance-baseline.properties.
+ *
+ * Each workload runs in a fresh application context and broker, so the send latency recorded by the producer metrics
+ * is for that workload alone.  The verifier is disabled so that consuming does not compete with sending.
+ *
+ * The throughput must be at least the baseline reduced by the tolerance, and the p99 latency at most the baseline
+ * increased by the tolerance.  The tolerance defaults to the one in the baseline, and can be overridden with the
+ * performance.tolerance system property.  The results are written to target/performance-result.properties, in the
+ * form of the baseline so it can be updated by copying them over.
+ *
+ * Requires neither Docker nor Conduktor Gateway.  Run with the performance profile:  mvn test -Pperformance
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = { KafkaDemoConfiguration.class },
+        properties = { "kafka.verifier.enabled=false" })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+@EmbeddedKafka(controlledShutdown = true, topics = { "demo-outbound-topic" })
+public class ThroughputPT {
+
+    private static final int NUMBER_OF_EVENTS = 100_000;
+
+    private static final int LOAD_CONCURRENCY = 4;
+
+    private static final Path RESULT_FILE = Paths.get("target", "performance-result.properties");
+
+    private static Properties baseline;
+
+    private static Properties results;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeAll
+    public static void loadBaseline() throws IOException {
+        baseline = new Properties();
+        try(InputStream in = ThroughputPT.class.getResourceAsStream("/performance-baseline.properties")) {
+            baseline.load(in);
+        }
+        results = new Properties();
+    }
+
+    @AfterAll
+    public static void writeResults() throws IOException {
+        Files.createDirectories(RESULT_FILE.getParent());
+        try(OutputStream out = Files.newOutputStream(RESULT_FILE)) {
+            results.store(out, "Results of the last performance test run");
+        }
+    }
+
+    /**
+     * Trigger the events synchronously, the call returning once every event is acknowledged.
+     */
+    @Test
+    public void testTrigger_Sync() {
+        long startNanos = System.nanoTime();
+        ResponseEntity<String> response = restTemplate.postForEntity("/v1/demo/trigger?async=false",
+                TestData.buildTriggerEventsRequest(NUMBER_OF_EVENTS), String.class);
+        long elapsedNanos = System.nanoTime() - startNanos;
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+
+        JobStatus jobStatus = restTemplate.getForObject("/v1/demo/jobs/" + response.getBody(), JobStatus.class);
+        assertThat(jobStatus.getAcked(), equalTo((long) NUMBER_OF_EVENTS));
+
+        verify("sync", NUMBER_OF_EVENTS * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos, sendLatencyP99Ms());
+    }
+
+    /**
+     * Trigger the events asynchronously, polling the job until every event is acknowledged.
+     */
+    @Test
+    public void testTrigger_Async() {
+        ResponseEntity<String> response = restTemplate.postForEntity("/v1/demo/trigger?async=true",
+                TestData.buildTriggerEventsRequest(NUMBER_OF_EVENTS), String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.ACCEPTED));
+
+        Awaitility.await().atMost(120, TimeUnit.SECONDS).pollInterval(50, TimeUnit.MILLISECONDS)
+                .until(() -> restTemplate.getForObject(response.getHeaders().getLocation(), JobStatus.class).getStatus(), equalTo("COMPLETED"));
+        JobStatus jobStatus = restTemplate.getForObject(response.getHeaders().getLocation(), JobStatus.class);
+        assertThat(jobStatus.getAcked(), equalTo((long) NUMBER_OF_EVENTS));
+
+        verify("async", jobStatus.getEventsPerSecond(), sendLatencyP99Ms());
+    }
+
+    /**
+     * Run a load scenario with the events pipelined across multiple workers.
+     */
+    @Test
+    public void testLoad_Pipelined() {
+        LoadScenarioRequest scenario = LoadScenarioRequest.builder()
+                .numberOfEvents(NUMBER_OF_EVENTS)
+                .concurrency(LOAD_CONCURRENCY)
+                .build();
+
+        ResponseEntity<LoadReport> response = restTemplate.postForEntity("/v1/demo/load", scenario, LoadReport.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getBody().getAcked(), equalTo((long) NUMBER_OF_EVENTS));
+
+        verify("pipelined", response.getBody().getEventsPerSecond(), response.getBody().getLatency().getP99Ms());
+    }
+
+    /**
+     * The p99 of the time from handing each event to the producer to its acknowledgement.
+     */
+    private double sendLatencyP99Ms() {
+        Timer timer = meterRegistry.get("kafka.producer.send.latency").tag("outcome", "success").timer();
+        for(ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+            if(percentile.percentile() == 0.99) {
+                return percentile.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        throw new IllegalStateException("p99 not published for the send latency");
+    }
+
+    /**
+     * Records the results of the workload, and asserts they are within the tolerance of the baseline.
+     */
+    private void verify(String workload, double eventsPerSecond, double p99Ms) {
+        double tolerance = Double.parseDouble(System.getProperty("performance.tolerance", baseline.getProperty("tolerance")));
+        double baselineEventsPerSecond = Double.parseDouble(baseline.getProperty(workload + ".eventsPerSecond"));
+        double baselineP99Ms = Double.parseDouble(baseline.getProperty(workload + ".p99Ms"));
+        log.warn("Workload: {} - events per second: {} (baseline {}) - p99 ms: {} (baseline {})",
+                workload, String.format("%.0f", eventsPerSecond), baselineEventsPerSecond, String.format("%.1f", p99Ms), baselineP99Ms);
+        results.setProperty(workload + ".eventsPerSecond", String.format("%.0f", eventsPerSecond));
+        results.setProperty(workload + ".p99Ms", String.format("%.1f", p99Ms));
+
+        assertThat(workload + " events per second", eventsPerSecond, greaterThanOrEqualTo(baselineEventsPerSecond * (1 - tolerance)));
+        assertThat(workload + " p99 ms", p99Ms, lessThanOrEqualTo(baselineP99Ms * (1 + tolerance)));
+    }
+}
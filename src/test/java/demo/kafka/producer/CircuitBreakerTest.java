@@ -0,0 +1,133 @@
+package demo.kafka.producer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import demo.kafka.properties.KafkaDemoProperties;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.InvalidRequiredAcksException;
+import org.apache.kafka.common.errors.NotEnoughReplicasException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaProducerException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+public class CircuitBreakerTest {
+
+    private static final Exception NON_RETRIABLE = new KafkaProducerException(mock(ProducerRecord.class), "Send failed",
+            new InvalidRequiredAcksException("Produce request specified an invalid value for required acks."));
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    public void setUp() {
+        KafkaDemoProperties.CircuitBreaker config = new KafkaDemoProperties.CircuitBreaker();
+        config.setEnabled(true);
+        config.setSlidingWindowSize(10);
+        config.setMinimumSends(5);
+        config.setFailureRateThreshold(50);
+        config.setOpenDurationMs(1000);
+        config.setProbes(2);
+        breaker = new CircuitBreaker(config, clock::get);
+    }
+
+    /**
+     * Ensure the breaker opens once the non-retriable failure rate reaches the threshold, rejecting further sends.
+     */
+    @Test
+    public void testOpen() {
+        for(int i = 0; i < 2; i++) {
+            send(null);
+            send(NON_RETRIABLE);
+        }
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.CLOSED));
+
+        send(NON_RETRIABLE);
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.OPEN));
+        assertThrows(CircuitBreakerOpenException.class, breaker::acquire);
+        assertThat(breaker.getRejected(), equalTo(1L));
+    }
+
+    /**
+     * Ensure retriable failures are left to the producer's retries, so do not open the breaker.
+     */
+    @Test
+    public void testRetriable() {
+        for(int i = 0; i < 10; i++) {
+            send(new KafkaProducerException(mock(ProducerRecord.class), "Send failed", new NotEnoughReplicasException("not enough replicas")));
+        }
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.CLOSED));
+        assertThat(breaker.getFailureRate(), equalTo(0d));
+    }
+
+    /**
+     * Ensure after the open duration the probe sends are let through, closing the breaker once every probe succeeds.
+     */
+    @Test
+    public void testHalfOpen_ProbesSucceed() {
+        open();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+        long first = breaker.acquire();
+        long second = breaker.acquire();
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.HALF_OPEN));
+        assertThrows(CircuitBreakerOpenException.class, breaker::acquire);
+
+        breaker.record(first, null);
+        breaker.record(second, null);
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.CLOSED));
+        breaker.acquire();
+    }
+
+    /**
+     * Ensure a failed probe opens the breaker again for the open duration.
+     */
+    @Test
+    public void testHalfOpen_ProbeFails() {
+        open();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+        breaker.record(breaker.acquire(), NON_RETRIABLE);
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.OPEN));
+        assertThrows(CircuitBreakerOpenException.class, breaker::acquire);
+    }
+
+    /**
+     * Ensure the outcomes of sends permitted before the breaker opened are not counted as probes once half open.
+     */
+    @Test
+    public void testHalfOpen_LateOutcomesIgnored() {
+        long late = breaker.acquire();
+        open();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+        long first = breaker.acquire();
+        long second = breaker.acquire();
+        breaker.record(late, null);
+        breaker.record(first, null);
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.HALF_OPEN));
+
+        breaker.record(late, NON_RETRIABLE);
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.HALF_OPEN));
+
+        breaker.record(second, null);
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.CLOSED));
+    }
+
+    private void open() {
+        for(int i = 0; i < 5; i++) {
+            send(NON_RETRIABLE);
+        }
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.OPEN));
+    }
+
+    private void send(Exception error) {
+        breaker.record(breaker.acquire(), error);
+    }
+}
@@ -1,21 +1,35 @@
 package demo.kafka.producer;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 import demo.kafka.properties.KafkaDemoProperties;
+import demo.kafka.spill.SpillLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.InvalidRequiredAcksException;
+import org.apache.kafka.common.errors.TimeoutException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaProducerException;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 
 import static java.util.UUID.randomUUID;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -24,13 +38,15 @@ public class KafkaProducerTest {
 
     private KafkaDemoProperties propertiesMock;
     private KafkaTemplate kafkaTemplateMock;
+    private MeterRegistry meterRegistry;
     private KafkaProducer kafkaClient;
 
     @BeforeEach
     public void setUp() {
         propertiesMock = mock(KafkaDemoProperties.class);
         kafkaTemplateMock = mock(KafkaTemplate.class);
-        kafkaClient = new KafkaProducer(propertiesMock, kafkaTemplateMock);
+        meterRegistry = new SimpleMeterRegistry();
+        kafkaClient = new KafkaProducer(propertiesMock, new ProducerPool(List.of(kafkaTemplateMock), KafkaDemoProperties.PoolStrategy.ROUND_ROBIN, meterRegistry), new ProducerMetrics(meterRegistry), new CircuitBreaker(new KafkaDemoProperties(), meterRegistry), Optional.empty());
     }
 
     /**
@@ -75,4 +91,175 @@ public class KafkaProducerTest {
         verify(kafkaTemplateMock, times(1)).send(expectedRecord);
         assertThat(exception.getMessage(), equalTo("Kafka send failure"));
     }
+
+    /**
+     * Ensure the message is sent without waiting for the acknowledgement.
+     */
+    @Test
+    public void testProcessAsync_Success() {
+        String data = randomUUID().toString();
+        String topic = "test-outbound-topic";
+
+        final ProducerRecord<String, String> expectedRecord = new ProducerRecord<>(topic, data);
+
+        when(propertiesMock.getOutboundTopic()).thenReturn(topic);
+        CompletableFuture<SendResult> futureResult = new CompletableFuture<>();
+        when(kafkaTemplateMock.send(any(ProducerRecord.class))).thenReturn(futureResult);
+
+        CompletableFuture<SendResult> result = kafkaClient.sendMessageAsync(data);
+
+        verify(kafkaTemplateMock, times(1)).send(expectedRecord);
+        assertThat(result, equalTo(futureResult));
+        assertThat(meterRegistry.get("kafka.producer.send.in.flight").gauge().value(), equalTo(1.0));
+
+        futureResult.complete(mock(SendResult.class));
+        assertThat(meterRegistry.get("kafka.producer.send.in.flight").gauge().value(), equalTo(0.0));
+        assertThat(meterRegistry.get("kafka.producer.send.latency").tag("outcome", "success").timer().count(), equalTo(1L));
+    }
+
+    /**
+     * Ensure a failed send is counted by its exception type and whether it is retryable.
+     */
+    @Test
+    public void testProcessAsync_SendFailed() {
+        when(propertiesMock.getOutboundTopic()).thenReturn("test-outbound-topic");
+        CompletableFuture<SendResult> futureResult = new CompletableFuture<>();
+        when(kafkaTemplateMock.send(any(ProducerRecord.class))).thenReturn(futureResult);
+
+        kafkaClient.sendMessageAsync(randomUUID().toString());
+        futureResult.completeExceptionally(new KafkaProducerException(mock(ProducerRecord.class), "Send failed",
+                new InvalidRequiredAcksException("Produce request specified an invalid value for required acks.")));
+
+        assertThat(meterRegistry.get("kafka.producer.send.latency").tag("outcome", "failure").timer().count(), equalTo(1L));
+        assertThat(meterRegistry.get("kafka.producer.send.outcome")
+                .tag("exception", "InvalidRequiredAcksException")
+                .tag("retryable", "false")
+                .counter().count(), equalTo(1.0));
+    }
+
+    /**
+     * Ensure a keyed message is sent with its key, with the acknowledgement counted by partition.
+     */
+    @Test
+    public void testProcessAsync_Keyed() {
+        String data = randomUUID().toString();
+        String topic = "test-outbound-topic";
+
+        final ProducerRecord<String, String> expectedRecord = new ProducerRecord<>(topic, "key-1", data);
+
+        when(propertiesMock.getOutboundTopic()).thenReturn(topic);
+        CompletableFuture<SendResult> futureResult = new CompletableFuture<>();
+        when(kafkaTemplateMock.send(any(ProducerRecord.class))).thenReturn(futureResult);
+
+        kafkaClient.sendMessageAsync("key-1", data);
+        futureResult.complete(new SendResult<>(expectedRecord, new RecordMetadata(new TopicPartition(topic, 3), 0, 0, 0, 0, 0)));
+
+        verify(kafkaTemplateMock, times(1)).send(expectedRecord);
+        assertThat(meterRegistry.get("kafka.producer.send.partition")
+                .tag("topic", topic)
+                .tag("partition", "3")
+                .counter().count(), equalTo(1.0));
+    }
+
+    /**
+     * Ensure the messages are sent within a single transaction, through the transaction's operations.
+     */
+    @Test
+    public void testSendInTransaction() {
+        String topic = "test-outbound-topic";
+        when(propertiesMock.getOutboundTopic()).thenReturn(topic);
+        KafkaOperations<String, Object> operationsMock = mock(KafkaOperations.class);
+        when(operationsMock.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        when(kafkaTemplateMock.executeInTransaction(any())).thenAnswer(invocation ->
+                invocation.<KafkaOperations.OperationsCallback<String, Object, Object>>getArgument(0).doInOperations(operationsMock));
+
+        List<CompletableFuture<SendResult>> results = kafkaClient.sendInTransaction(List.of("key-1", "key-2"), List.of("data-1", "data-2"));
+
+        assertThat(results.size(), equalTo(2));
+        verify(kafkaTemplateMock, times(1)).executeInTransaction(any());
+        verify(operationsMock, times(1)).send(new ProducerRecord<>(topic, "key-1", "data-1"));
+        verify(operationsMock, times(1)).send(new ProducerRecord<>(topic, "key-2", "data-2"));
+        verify(kafkaTemplateMock, never()).send(any(ProducerRecord.class));
+        assertThat(meterRegistry.get("kafka.producer.send.latency").tag("outcome", "success").timer().count(), equalTo(2L));
+    }
+
+    /**
+     * Ensure a send failing with a retriable error is written to the spill log, completing with a SpilledException.
+     */
+    @Test
+    public void testProcessAsync_Spilled() {
+        SpillLog spillLogMock = mock(SpillLog.class);
+        when(spillLogMock.append(any(), any())).thenReturn(true);
+        kafkaClient = new KafkaProducer(propertiesMock, new ProducerPool(List.of(kafkaTemplateMock), KafkaDemoProperties.PoolStrategy.ROUND_ROBIN, meterRegistry), new ProducerMetrics(meterRegistry), new CircuitBreaker(new KafkaDemoProperties(), meterRegistry), Optional.of(spillLogMock));
+        when(propertiesMock.getOutboundTopic()).thenReturn("test-outbound-topic");
+        CompletableFuture<SendResult> futureResult = new CompletableFuture<>();
+        when(kafkaTemplateMock.send(any(ProducerRecord.class))).thenReturn(futureResult);
+
+        CompletableFuture<SendResult> result = kafkaClient.sendMessageAsync("key-1", "data");
+        futureResult.completeExceptionally(new KafkaProducerException(mock(ProducerRecord.class), "Send failed", new TimeoutException("Expiring 1 record(s)")));
+
+        verify(spillLogMock, times(1)).append("key-1", "data");
+        Exception exception = assertThrows(Exception.class, result::join);
+        assertThat(exception.getCause(), instanceOf(SpilledException.class));
+    }
+
+    /**
+     * Ensure a send timing out when handed to the producer, such as blocked on a full buffer for max.block.ms, is
+     * written to the spill log rather than thrown.
+     */
+    @Test
+    public void testProcessAsync_SpilledOnBlockTimeout() {
+        SpillLog spillLogMock = mock(SpillLog.class);
+        when(spillLogMock.append(any(), any())).thenReturn(true);
+        kafkaClient = new KafkaProducer(propertiesMock, new ProducerPool(List.of(kafkaTemplateMock), KafkaDemoProperties.PoolStrategy.ROUND_ROBIN, meterRegistry), new ProducerMetrics(meterRegistry), new CircuitBreaker(new KafkaDemoProperties(), meterRegistry), Optional.of(spillLogMock));
+        when(propertiesMock.getOutboundTopic()).thenReturn("test-outbound-topic");
+        doThrow(new TimeoutException("Topic not present in metadata after 1000 ms.")).when(kafkaTemplateMock).send(any(ProducerRecord.class));
+
+        CompletableFuture<SendResult> result = kafkaClient.sendMessageAsync("key-1", "data");
+
+        verify(spillLogMock, times(1)).append("key-1", "data");
+        Exception exception = assertThrows(Exception.class, result::join);
+        assertThat(exception.getCause(), instanceOf(SpilledException.class));
+    }
+
+    /**
+     * Ensure a send failing with a non-retriable error is not spilled, and fails as before.
+     */
+    @Test
+    public void testProcessAsync_NotSpilled() {
+        SpillLog spillLogMock = mock(SpillLog.class);
+        kafkaClient = new KafkaProducer(propertiesMock, new ProducerPool(List.of(kafkaTemplateMock), KafkaDemoProperties.PoolStrategy.ROUND_ROBIN, meterRegistry), new ProducerMetrics(meterRegistry), new CircuitBreaker(new KafkaDemoProperties(), meterRegistry), Optional.of(spillLogMock));
+        when(propertiesMock.getOutboundTopic()).thenReturn("test-outbound-topic");
+        CompletableFuture<SendResult> futureResult = new CompletableFuture<>();
+        when(kafkaTemplateMock.send(any(ProducerRecord.class))).thenReturn(futureResult);
+
+        CompletableFuture<SendResult> result = kafkaClient.sendMessageAsync("key-1", "data");
+        futureResult.completeExceptionally(new KafkaProducerException(mock(ProducerRecord.class), "Send failed",
+                new InvalidRequiredAcksException("Produce request specified an invalid value for required acks.")));
+
+        verify(spillLogMock, never()).append(any(), eq("data"));
+        Exception exception = assertThrows(Exception.class, result::join);
+        assertThat(exception.getCause(), instanceOf(KafkaProducerException.class));
+    }
+
+    /**
+     * Ensure that while the circuit breaker is open sends fail fast without reaching the producer.
+     */
+    @Test
+    public void testProcessAsync_CircuitBreakerOpen() {
+        KafkaDemoProperties properties = new KafkaDemoProperties();
+        properties.getCircuitBreaker().setEnabled(true);
+        properties.getCircuitBreaker().setMinimumSends(1);
+        CircuitBreaker circuitBreaker = new CircuitBreaker(properties, new SimpleMeterRegistry());
+        kafkaClient = new KafkaProducer(propertiesMock, new ProducerPool(List.of(kafkaTemplateMock), KafkaDemoProperties.PoolStrategy.ROUND_ROBIN, meterRegistry), new ProducerMetrics(meterRegistry), circuitBreaker, Optional.empty());
+        when(propertiesMock.getOutboundTopic()).thenReturn("test-outbound-topic");
+        when(kafkaTemplateMock.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.failedFuture(new KafkaProducerException(mock(ProducerRecord.class), "Send failed",
+                new InvalidRequiredAcksException("Produce request specified an invalid value for required acks."))));
+
+        kafkaClient.sendMessageAsync("data-1");
+        assertThrows(CircuitBreakerOpenException.class, () -> kafkaClient.sendMessageAsync("data-2"));
+
+        verify(kafkaTemplateMock, times(1)).send(any(ProducerRecord.class));
+        assertThat(circuitBreaker.getRejected(), equalTo(1L));
+    }
 }
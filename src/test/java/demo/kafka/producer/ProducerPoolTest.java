@@ -0,0 +1,74 @@
+package demo.kafka.producer;
+
+import java.util.List;
+
+import demo.kafka.properties.KafkaDemoProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ProducerPoolTest {
+
+    private KafkaTemplate<String, Object> kafkaTemplate0;
+    private KafkaTemplate<String, Object> kafkaTemplate1;
+    private KafkaTemplate<String, Object> kafkaTemplate2;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        kafkaTemplate0 = mock(KafkaTemplate.class);
+        kafkaTemplate1 = mock(KafkaTemplate.class);
+        kafkaTemplate2 = mock(KafkaTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    /**
+     * Ensure the sends go to each producer in turn, counted by producer.
+     */
+    @Test
+    public void testSelect_RoundRobin() {
+        ProducerPool pool = new ProducerPool(List.of(kafkaTemplate0, kafkaTemplate1, kafkaTemplate2), KafkaDemoProperties.PoolStrategy.ROUND_ROBIN, meterRegistry);
+
+        assertThat(pool.select("key"), sameInstance(kafkaTemplate0));
+        assertThat(pool.select("key"), sameInstance(kafkaTemplate1));
+        assertThat(pool.select("key"), sameInstance(kafkaTemplate2));
+        assertThat(pool.select("key"), sameInstance(kafkaTemplate0));
+        assertThat(meterRegistry.get(ProducerPool.POOL_SENDS).tag("producer", "0").counter().count(), equalTo(2.0));
+        assertThat(meterRegistry.get(ProducerPool.POOL_SENDS).tag("producer", "1").counter().count(), equalTo(1.0));
+    }
+
+    /**
+     * Ensure all the sends for a key go through the same producer, with sends without a key spread round robin.
+     */
+    @Test
+    public void testSelect_Key() {
+        ProducerPool pool = new ProducerPool(List.of(kafkaTemplate0, kafkaTemplate1, kafkaTemplate2), KafkaDemoProperties.PoolStrategy.KEY, meterRegistry);
+
+        KafkaTemplate<String, Object> selected = pool.select("key-1");
+        for(int i = 0; i < 10; i++) {
+            assertThat(pool.select("key-1"), sameInstance(selected));
+        }
+        assertThat(pool.select(null), sameInstance(kafkaTemplate0));
+        assertThat(pool.select(null), sameInstance(kafkaTemplate1));
+    }
+
+    /**
+     * Ensure flushing the pool flushes every producer.
+     */
+    @Test
+    public void testFlush() {
+        ProducerPool pool = new ProducerPool(List.of(kafkaTemplate0, kafkaTemplate1), KafkaDemoProperties.PoolStrategy.ROUND_ROBIN, meterRegistry);
+        pool.flush();
+        verify(kafkaTemplate0, times(1)).flush();
+        verify(kafkaTemplate1, times(1)).flush();
+    }
+}
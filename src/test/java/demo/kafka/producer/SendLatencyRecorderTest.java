@@ -0,0 +1,95 @@
+package demo.kafka.producer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import demo.kafka.rest.api.LatencyReport;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SendLatencyRecorderTest {
+
+    /**
+     * Ensure the percentiles of the latencies recorded are reported to 3 significant digits.
+     */
+    @Test
+    public void testToReport_Percentiles() {
+        SendLatencyRecorder recorder = new SendLatencyRecorder();
+        for(int millis = 1; millis <= 100; millis++) {
+            recorder.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        LatencyReport report = recorder.toReport();
+        assertThat(report.getCount(), equalTo(100L));
+        assertThat(report.getMinMs(), closeTo(1, 0.001));
+        assertThat(report.getP50Ms(), closeTo(50, 0.05));
+        assertThat(report.getP99Ms(), closeTo(99, 0.1));
+        assertThat(report.getMaxMs(), closeTo(100, 0.1));
+        assertThat(report.getCorrectedForCoordinatedOmission(), equalTo(false));
+    }
+
+    /**
+     * Ensure the latencies measured from the intended send times are recorded as they are, one per send, with the
+     * report showing they are corrected for coordinated omission.
+     */
+    @Test
+    public void testRecord_CorrectedForCoordinatedOmission() {
+        SendLatencyRecorder recorder = new SendLatencyRecorder(true);
+        for(int i = 0; i < 1000; i++) {
+            recorder.record(TimeUnit.MILLISECONDS.toNanos(20));
+        }
+
+        LatencyReport report = recorder.toReport();
+        assertThat(report.getCount(), equalTo(1000L));
+        assertThat(report.getP50Ms(), closeTo(20, 0.02));
+        assertThat(report.getCorrectedForCoordinatedOmission(), equalTo(true));
+    }
+
+    /**
+     * Ensure a reset clears the latencies recorded.
+     */
+    @Test
+    public void testReset() {
+        SendLatencyRecorder recorder = new SendLatencyRecorder();
+        recorder.record(TimeUnit.MILLISECONDS.toNanos(5));
+        assertThat(recorder.getHistogram().getTotalCount(), equalTo(1L));
+
+        recorder.reset();
+        recorder.record(TimeUnit.MILLISECONDS.toNanos(7));
+
+        Histogram histogram = recorder.getHistogram();
+        assertThat(histogram.getTotalCount(), equalTo(1L));
+        assertThat(histogram.getMinValue(), equalTo(histogram.lowestEquivalentValue(7000)));
+    }
+
+    /**
+     * Ensure serialized histograms are merged into one holding the latencies of each.
+     */
+    @Test
+    public void testMerge() {
+        SendLatencyRecorder healthy = new SendLatencyRecorder();
+        SendLatencyRecorder slow = new SendLatencyRecorder();
+        for(int i = 0; i < 10; i++) {
+            healthy.record(TimeUnit.MILLISECONDS.toNanos(2));
+            slow.record(TimeUnit.MILLISECONDS.toNanos(80));
+        }
+
+        Histogram merged = SendLatencyRecorder.merge(List.of(healthy.toReport().getHistogram(), slow.toReport().getHistogram()));
+
+        assertThat(merged.getTotalCount(), equalTo(20L));
+        assertThat(SendLatencyRecorder.toReport(merged).getMaxMs(), closeTo(80, 0.1));
+    }
+
+    /**
+     * Ensure a histogram that is not valid is rejected.
+     */
+    @Test
+    public void testDecode_Invalid() {
+        assertThrows(IllegalArgumentException.class, () -> SendLatencyRecorder.decode("not a histogram"));
+    }
+}
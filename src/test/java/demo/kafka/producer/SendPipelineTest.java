@@ -0,0 +1,278 @@
+package demo.kafka.producer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.InvalidRequiredAcksException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.kafka.support.SendResult;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SendPipelineTest {
+
+    private KafkaProducer kafkaProducerMock;
+
+    @BeforeEach
+    public void setUp() {
+        kafkaProducerMock = mock(KafkaProducer.class);
+    }
+
+    /**
+     * Ensure that awaiting completion returns once all the sends in flight have been acknowledged.
+     */
+    @Test
+    public void testSend_Success() throws Exception {
+        when(kafkaProducerMock.sendMessageAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        SendListener listenerMock = mock(SendListener.class);
+        SendPipeline pipeline = new SendPipeline(kafkaProducerMock, listenerMock, 10);
+
+        for(int i = 0; i < 25; i++) {
+            pipeline.send("event-" + i);
+        }
+        pipeline.awaitCompletion();
+
+        verify(kafkaProducerMock, times(25)).sendMessageAsync(any(), any());
+        verify(listenerMock, times(25)).onSent();
+        verify(listenerMock, times(25)).onAcknowledged(any());
+        verify(listenerMock, times(25)).onLatency(anyLong());
+        assertThat(pipeline.inFlight(), equalTo(0));
+    }
+
+    /**
+     * Ensure that no more than the window size of sends are in flight, with the next send blocking until a send
+     * completes.
+     */
+    @Test
+    public void testSend_WindowFull() throws Exception {
+        CompletableFuture<SendResult> first = new CompletableFuture<>();
+        when(kafkaProducerMock.sendMessageAsync(any(), any())).thenReturn(first, new CompletableFuture<>(), new CompletableFuture<>());
+        SendPipeline pipeline = new SendPipeline(kafkaProducerMock, SendListener.NONE, 2);
+        pipeline.send("event-1");
+        pipeline.send("event-2");
+
+        Thread sender = new Thread(() -> {
+            try {
+                pipeline.send("event-3");
+            } catch(Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        sender.start();
+        TimeUnit.MILLISECONDS.sleep(200);
+        verify(kafkaProducerMock, times(2)).sendMessageAsync(any(), any());
+
+        first.complete(mock(SendResult.class));
+        sender.join(5000);
+        verify(kafkaProducerMock, times(3)).sendMessageAsync(any(), any());
+        assertThat(pipeline.inFlight(), equalTo(2));
+    }
+
+    /**
+     * Ensure that a failed send is surfaced unwrapped when awaiting completion.
+     */
+    @Test
+    public void testAwaitCompletion_SendFailed() throws Exception {
+        CompletableFuture<SendResult> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new KafkaProducerException(mock(ProducerRecord.class), "Send failed",
+                new InvalidRequiredAcksException("Produce request specified an invalid value for required acks.")));
+        when(kafkaProducerMock.sendMessageAsync(any(), any())).thenReturn(failed);
+        SendListener listenerMock = mock(SendListener.class);
+        SendPipeline pipeline = new SendPipeline(kafkaProducerMock, listenerMock, 10);
+        pipeline.send("event-1");
+
+        Exception exception = assertThrows(Exception.class, pipeline::awaitCompletion);
+        verify(listenerMock, times(1)).onFailed(any(KafkaProducerException.class));
+        assertThat(exception.getMessage(), equalTo("org.apache.kafka.common.errors.InvalidRequiredAcksException: Produce request specified an invalid value for required acks."));
+    }
+
+    /**
+     * Ensure that a spilled send is not a failure, with the listener notified that it was spilled.
+     */
+    @Test
+    public void testSend_Spilled() throws Exception {
+        when(kafkaProducerMock.sendMessageAsync(any(), any())).thenReturn(CompletableFuture.failedFuture(new SpilledException(new RuntimeException("Timed out"))));
+        SendListener listenerMock = mock(SendListener.class);
+        SendPipeline pipeline = new SendPipeline(kafkaProducerMock, listenerMock, 10);
+        pipeline.send("event-1");
+        pipeline.send("event-2");
+
+        pipeline.awaitCompletion();
+        verify(listenerMock, times(2)).onSpilled();
+        verify(listenerMock, never()).onFailed(any());
+    }
+
+    /**
+     * Ensure that with a spill timeout a send that cannot take a place in the full window is spilled without being
+     * handed to the producer, as are those following it until a place frees up.
+     */
+    @Test
+    public void testSend_WindowFullSpilled() throws Exception {
+        CompletableFuture<SendResult> first = new CompletableFuture<>();
+        when(kafkaProducerMock.sendMessageAsync(any(), any())).thenReturn(first, new CompletableFuture<>());
+        when(kafkaProducerMock.spill(any(), any())).thenReturn(true);
+        SendListener listenerMock = mock(SendListener.class);
+        SendPipeline pipeline = new SendPipeline(kafkaProducerMock, listenerMock, new SendWindow(1), 0, TimeUnit.MILLISECONDS.toNanos(50));
+        pipeline.send("event-1");
+
+        CompletableFuture<SendResult> spilled = pipeline.send("event-2");
+        pipeline.send("event-3");
+        assertThat(spilled.isCompletedExceptionally(), equalTo(true));
+        verify(kafkaProducerMock, times(1)).spill(null, "event-2");
+        verify(kafkaProducerMock, times(1)).spill(null, "event-3");
+        verify(listenerMock, times(2)).onSpilled();
+
+        first.complete(mock(SendResult.class));
+        pipeline.send("event-4");
+        verify(kafkaProducerMock, times(2)).sendMessageAsync(any(), any());
+        verify(listenerMock, times(4)).onSent();
+        verify(listenerMock, never()).onFailed(any());
+    }
+
+    /**
+     * Ensure that once a send has failed, no further sends are made.
+     */
+    @Test
+    public void testSend_AfterFailure() throws Exception {
+        CompletableFuture<SendResult> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new KafkaProducerException(mock(ProducerRecord.class), "Send failed", new RuntimeException("Failed")));
+        when(kafkaProducerMock.sendMessageAsync(any(), any())).thenReturn(failed);
+        SendPipeline pipeline = new SendPipeline(kafkaProducerMock, SendListener.NONE, 10);
+        pipeline.send("event-1");
+
+        Exception exception = assertThrows(Exception.class, () -> pipeline.send("event-2"));
+        assertThat(exception.getMessage(), equalTo("java.lang.RuntimeException: Failed"));
+        verify(kafkaProducerMock, times(1)).sendMessageAsync(any(), any());
+    }
+
+    /**
+     * Ensure that flushing flushes the producer and surfaces any failed send.
+     */
+    @Test
+    public void testFlush_SendFailed() throws Exception {
+        CompletableFuture<SendResult> failed = new CompletableFuture<>();
+        when(kafkaProducerMock.sendMessageAsync(any(), any())).thenReturn(failed);
+        doAnswer(invocation -> failed.completeExceptionally(new KafkaProducerException(mock(ProducerRecord.class), "Send failed", new RuntimeException("Failed"))))
+                .when(kafkaProducerMock).flush();
+        SendPipeline pipeline = new SendPipeline(kafkaProducerMock, SendListener.NONE, 10);
+        pipeline.sendBatch(List.of("event-1"));
+
+        Exception exception = assertThrows(Exception.class, pipeline::flush);
+        assertThat(exception.getMessage(), equalTo("java.lang.RuntimeException: Failed"));
+        verify(kafkaProducerMock, times(1)).flush();
+    }
+
+    /**
+     * Ensure that in the transactional mode each batch is sent in transactions of the transaction batch size.
+     */
+    @Test
+    public void testSendBatch_Transactional() throws Exception {
+        when(kafkaProducerMock.sendInTransaction(any(), anyList())).thenAnswer(invocation -> {
+            List<?> payloads = invocation.getArgument(1);
+            return payloads.stream().map(payload -> CompletableFuture.completedFuture(mock(SendResult.class))).toList();
+        });
+        SendListener listenerMock = mock(SendListener.class);
+        SendPipeline pipeline = new SendPipeline(kafkaProducerMock, listenerMock, new SendWindow(10), 10);
+
+        List<String> payloads = IntStream.range(0, 25).mapToObj(i -> "event-" + i).toList();
+        pipeline.sendBatch(payloads);
+        pipeline.flush();
+        pipeline.awaitCompletion();
+
+        verify(kafkaProducerMock, times(1)).sendInTransaction(null, payloads.subList(0, 10));
+        verify(kafkaProducerMock, times(1)).sendInTransaction(null, payloads.subList(10, 20));
+        verify(kafkaProducerMock, times(1)).sendInTransaction(null, payloads.subList(20, 25));
+        verify(kafkaProducerMock, never()).sendMessageAsync(any(), any());
+        verify(kafkaProducerMock, never()).flush();
+        verify(listenerMock, times(25)).onSent();
+        verify(listenerMock, times(25)).onAcknowledged(any());
+        verify(listenerMock, times(25)).onLatency(anyLong());
+        verify(listenerMock, times(3)).onTransactionCommitted();
+    }
+
+    /**
+     * Ensure that a send's latency is measured from its intended send time when given, so includes the time it was
+     * held up before being handed to the producer.
+     */
+    @Test
+    public void testSend_IntendedSendTime() throws Exception {
+        when(kafkaProducerMock.sendMessageAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        SendListener listenerMock = mock(SendListener.class);
+        SendPipeline pipeline = new SendPipeline(kafkaProducerMock, listenerMock, 10);
+
+        pipeline.send(null, "event-1", System.nanoTime() - TimeUnit.SECONDS.toNanos(1));
+        pipeline.send(null, "event-2");
+
+        verify(listenerMock, times(1)).onLatency(longThat(latency -> latency >= TimeUnit.SECONDS.toNanos(1)));
+        verify(listenerMock, times(1)).onLatency(longThat(latency -> latency < TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    /**
+     * Ensure that the latency of each send in a transaction is measured from its own intended send time to the commit,
+     * rather than each send taking the transaction's duration.
+     */
+    @Test
+    public void testSendBatch_TransactionalIntendedSendTimes() throws Exception {
+        when(kafkaProducerMock.sendInTransaction(any(), anyList())).thenAnswer(invocation -> {
+            List<?> payloads = invocation.getArgument(1);
+            return payloads.stream().map(payload -> CompletableFuture.completedFuture(mock(SendResult.class))).toList();
+        });
+        List<Long> latencies = new ArrayList<>();
+        SendPipeline pipeline = new SendPipeline(kafkaProducerMock, new SendListener() {
+            @Override
+            public void onLatency(long latencyNanos) {
+                latencies.add(latencyNanos);
+            }
+        }, new SendWindow(10), 2);
+
+        long nowNanos = System.nanoTime();
+        long[] intendedNanos = {nowNanos - TimeUnit.SECONDS.toNanos(3), nowNanos - TimeUnit.SECONDS.toNanos(2), nowNanos - TimeUnit.SECONDS.toNanos(1)};
+        pipeline.sendBatch(null, List.of("event-1", "event-2", "event-3"), intendedNanos);
+
+        assertThat(latencies.size(), equalTo(3));
+        for(int i = 0; i < 3; i++) {
+            assertThat(latencies.get(i), allOf(greaterThanOrEqualTo(TimeUnit.SECONDS.toNanos(3 - i)), lessThan(TimeUnit.SECONDS.toNanos(4 - i))));
+        }
+    }
+
+    /**
+     * Ensure that a failed transaction fails each of its sends, with no further transactions sent.
+     */
+    @Test
+    public void testSendBatch_TransactionFailed() throws Exception {
+        when(kafkaProducerMock.sendInTransaction(any(), anyList())).thenThrow(new KafkaException("Transaction aborted"));
+        SendListener listenerMock = mock(SendListener.class);
+        SendPipeline pipeline = new SendPipeline(kafkaProducerMock, listenerMock, new SendWindow(10), 10);
+
+        List<String> payloads = IntStream.range(0, 25).mapToObj(i -> "event-" + i).toList();
+        Exception exception = assertThrows(Exception.class, () -> pipeline.sendBatch(payloads));
+        assertThat(exception.getMessage(), equalTo("Transaction aborted"));
+        assertThrows(Exception.class, pipeline::awaitCompletion);
+
+        verify(kafkaProducerMock, times(1)).sendInTransaction(any(), anyList());
+        verify(listenerMock, times(10)).onFailed(any(KafkaException.class));
+        verify(listenerMock, never()).onTransactionCommitted();
+    }
+}
@@ -0,0 +1,108 @@
+package demo.kafka.producer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.common.errors.InvalidRequiredAcksException;
+import org.apache.kafka.common.errors.NotEnoughReplicasException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaProducerException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class SendWindowTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(1000);
+
+    /**
+     * Ensure a fixed window keeps its limit regardless of the latency and errors of the sends.
+     */
+    @Test
+    public void testFixed() throws Exception {
+        SendWindow window = new SendWindow(10);
+        for(int i = 0; i < 10; i++) {
+            window.acquire();
+        }
+        for(int i = 0; i < 10; i++) {
+            window.release(SLOW, new NotEnoughReplicasException("not enough replicas"));
+        }
+        assertThat(window.limit(), equalTo(10));
+        assertThat(window.inFlight(), equalTo(0));
+    }
+
+    /**
+     * Ensure a full window blocks the next acquire until a send is released.
+     */
+    @Test
+    public void testAcquire_Full() throws Exception {
+        SendWindow window = new SendWindow(1);
+        window.acquire();
+        CompletableFuture<Void> next = CompletableFuture.runAsync(() -> {
+            try {
+                window.acquire();
+            } catch(InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertThat(next.isDone(), equalTo(false));
+
+        window.release(FAST, null);
+        next.get(5, TimeUnit.SECONDS);
+        assertThat(window.inFlight(), equalTo(1));
+    }
+
+    /**
+     * Ensure acquiring with a timeout gives up once the window has stayed full for the timeout.
+     */
+    @Test
+    public void testTryAcquire_Timeout() throws Exception {
+        SendWindow window = new SendWindow(1);
+        assertThat(window.tryAcquire(0), equalTo(true));
+        assertThat(window.tryAcquire(TimeUnit.MILLISECONDS.toNanos(50)), equalTo(false));
+
+        window.release(FAST, null);
+        assertThat(window.tryAcquire(0), equalTo(true));
+        assertThat(window.inFlight(), equalTo(1));
+    }
+
+    /**
+     * Ensure an adaptive window shrinks as sends exceed the target latency, down to its minimum, and grows back as
+     * sends are healthy.
+     */
+    @Test
+    public void testAdaptive_Latency() throws Exception {
+        SendWindow window = new SendWindow(2, 20, 500);
+        for(int i = 0; i < 50; i++) {
+            window.acquire();
+            window.release(SLOW, null);
+        }
+        assertThat(window.limit(), equalTo(2));
+
+        // Keep the window in use so that it grows.
+        for(int i = 0; i < 500; i++) {
+            while(window.inFlight() < window.limit()) {
+                window.acquire();
+            }
+            window.release(FAST, null);
+        }
+        assertThat(window.limit(), equalTo(20));
+    }
+
+    /**
+     * Ensure an adaptive window shrinks on a retriable error, but not on a non-retriable error.
+     */
+    @Test
+    public void testAdaptive_Errors() throws Exception {
+        SendWindow window = new SendWindow(1, 20, 500);
+        window.acquire();
+        window.release(FAST, new KafkaProducerException(null, "failed", new NotEnoughReplicasException("not enough replicas")));
+        assertThat(window.limit(), equalTo(18));
+
+        window.acquire();
+        window.release(FAST, new KafkaProducerException(null, "failed", new InvalidRequiredAcksException("invalid acks")));
+        assertThat(window.limit(), equalTo(18));
+    }
+}
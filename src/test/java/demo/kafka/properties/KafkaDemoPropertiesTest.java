@@ -0,0 +1,137 @@
+package demo.kafka.properties;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class KafkaDemoPropertiesTest {
+
+    private KafkaDemoProperties properties;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new KafkaDemoProperties();
+        properties.setOutboundTopic("demo-outbound-topic");
+    }
+
+    /**
+     * Ensure the defaults are valid.
+     */
+    @Test
+    public void testValidate_Defaults() {
+        assertDoesNotThrow(properties::afterPropertiesSet);
+    }
+
+    /**
+     * Ensure the outbound topic must be set.
+     */
+    @Test
+    public void testValidate_MissingOutboundTopic() {
+        properties.setOutboundTopic(null);
+        Exception exception = assertThrows(IllegalStateException.class, properties::afterPropertiesSet);
+        assertThat(exception.getMessage(), containsString("outboundTopic must be set"));
+    }
+
+    /**
+     * Ensure the full set of tuning settings can be configured.
+     */
+    @Test
+    public void testValidate_Tuning() {
+        properties.getProducer().setCompressionType("lz4");
+        properties.getProducer().setBatchSize(65536);
+        properties.getProducer().setBufferMemory(67108864L);
+        properties.getProducer().setMaxInFlightRequestsPerConnection(5);
+        properties.getProducer().setAcks("all");
+        properties.getProducer().setMode(KafkaDemoProperties.ProducerMode.IDEMPOTENT);
+        assertDoesNotThrow(properties::afterPropertiesSet);
+    }
+
+    /**
+     * Ensure the delivery timeout must cover the linger and request timeout.
+     */
+    @Test
+    public void testValidate_DeliveryTimeoutTooShort() {
+        properties.getProducer().setDeliveryTimeoutMs(30000);
+        properties.getProducer().setRequestTimeoutMs(30000);
+        properties.getProducer().setLingerMs(10);
+        Exception exception = assertThrows(IllegalStateException.class, properties::afterPropertiesSet);
+        assertThat(exception.getMessage(), containsString("deliveryTimeoutMs (30000) must be equal to or larger than lingerMs (10) + requestTimeoutMs (30000)"));
+    }
+
+    /**
+     * Ensure an unknown compression type is rejected.
+     */
+    @Test
+    public void testValidate_InvalidCompressionType() {
+        properties.getProducer().setCompressionType("brotli");
+        Exception exception = assertThrows(IllegalStateException.class, properties::afterPropertiesSet);
+        assertThat(exception.getMessage(), containsString("compressionType"));
+    }
+
+    /**
+     * Ensure an unknown acks setting is rejected.
+     */
+    @Test
+    public void testValidate_InvalidAcks() {
+        properties.getProducer().setAcks("2");
+        Exception exception = assertThrows(IllegalStateException.class, properties::afterPropertiesSet);
+        assertThat(exception.getMessage(), containsString("acks"));
+    }
+
+    /**
+     * Ensure idempotence is rejected with settings that conflict with it.
+     */
+    @Test
+    public void testValidate_IdempotenceConflicts() {
+        properties.getProducer().setMode(KafkaDemoProperties.ProducerMode.IDEMPOTENT);
+        properties.getProducer().setAcks("1");
+        Exception exception = assertThrows(IllegalStateException.class, properties::afterPropertiesSet);
+        assertThat(exception.getMessage(), containsString("acks must be all when mode is IDEMPOTENT"));
+
+        properties.getProducer().setMode(KafkaDemoProperties.ProducerMode.PLAIN);
+        assertDoesNotThrow(properties::afterPropertiesSet);
+    }
+
+    /**
+     * Ensure the transactional mode requires a transactional id prefix.
+     */
+    @Test
+    public void testValidate_Transactional() {
+        properties.getProducer().setMode(KafkaDemoProperties.ProducerMode.TRANSACTIONAL);
+        assertDoesNotThrow(properties::afterPropertiesSet);
+
+        properties.getProducer().setTransactionIdPrefix(" ");
+        Exception exception = assertThrows(IllegalStateException.class, properties::afterPropertiesSet);
+        assertThat(exception.getMessage(), containsString("transactionIdPrefix must be set when mode is TRANSACTIONAL"));
+    }
+
+    /**
+     * Ensure an adaptive send window whose minimum is larger than the send window is rejected.
+     */
+    @Test
+    public void testValidate_AdaptiveSendWindow() {
+        properties.getProducer().setAdaptiveSendWindow(true);
+        properties.getProducer().setSendWindow(10);
+        properties.getProducer().setMinSendWindow(20);
+        Exception exception = assertThrows(IllegalStateException.class, properties::afterPropertiesSet);
+        assertThat(exception.getMessage(), containsString("minSendWindow (20) must not be larger than sendWindow (10)"));
+    }
+
+    /**
+     * Ensure the spill log cannot be bounded below the size of a single segment.
+     */
+    @Test
+    public void testValidate_Spill() {
+        properties.getSpill().setEnabled(true);
+        assertDoesNotThrow(properties::afterPropertiesSet);
+
+        properties.getSpill().setSegmentBytes(4096);
+        properties.getSpill().setMaxBytes(1024L);
+        Exception exception = assertThrows(IllegalStateException.class, properties::afterPropertiesSet);
+        assertThat(exception.getMessage(), containsString("maxBytes (1024) must not be smaller than segmentBytes (4096)"));
+    }
+}
@@ -0,0 +1,487 @@
+package demo.kafka.proxy;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.message.DescribeClusterResponseData;
+import org.apache.kafka.common.message.FindCoordinatorResponseData;
+import org.apache.kafka.common.message.MetadataResponseData;
+import org.apache.kafka.common.message.ResponseHeaderData;
+import org.apache.kafka.common.protocol.ApiKeys;
+import org.apache.kafka.common.protocol.ApiMessage;
+import org.apache.kafka.common.protocol.ByteBufferAccessor;
+import org.apache.kafka.common.protocol.Errors;
+import org.apache.kafka.common.protocol.ObjectSerializationCache;
+import org.apache.kafka.common.requests.AbstractResponse;
+import org.apache.kafka.common.requests.ProduceRequest;
+import org.apache.kafka.common.requests.RequestHeader;
+import org.apache.kafka.common.requests.ResponseHeader;
+
+/**
+ * A Kafka protocol proxy in front of a single broker, injecting faults into produce requests.  A local stand-in for
+ * Conduktor Gateway, so that chaos scenarios run in process against the embedded broker, without Docker.
+ *
+ * Each client connection is relayed to its own connection to the broker, on a single selector thread.  The broker
+ * addresses in metadata, find coordinator and describe cluster responses are rewritten to the proxy, so the clients
+ * send every request through it.
+ *
+ * The faults mirror the Conduktor Gateway ones used by ResilienceCT:
+ *
+ * slow broker: a latency, by default uniform between a min and max, is added to a percentage of produce requests.
+ *
+ * broken broker: a percentage of produce requests are answered by the proxy with the given error, without reaching the
+ * broker.  A leader election answers with NOT_LEADER_OR_FOLLOWER.
+ *
+ * Responses are returned on each connection in the order of its requests, as the clients require, so a delayed produce
+ * response also holds back the responses to later requests on its connection, as a slow broker would.
+ */
+@Slf4j
+public class FaultInjectingProxy implements AutoCloseable {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private static final Faults NO_FAULTS = new Faults(0, () -> 0, 0, Errors.NONE);
+
+    private final InetSocketAddress upstream;
+
+    private final Selector selector;
+
+    private final ServerSocketChannel server;
+
+    private final Set<Connection> connections = new HashSet<>();
+
+    private final Thread thread;
+
+    private final AtomicLong delayedRequests = new AtomicLong();
+
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    private volatile Faults faults = NO_FAULTS;
+
+    private volatile boolean running = true;
+
+    /**
+     * The faults to inject, with each rate a percentage of produce requests.
+     */
+    private record Faults(int latencyRate, LongSupplier latencyMs, int errorRate, Errors error) {
+    }
+
+    /**
+     * Starts a proxy on an ephemeral port in front of the broker at the given bootstrap servers, of which only the first
+     * is used.
+     */
+    public static FaultInjectingProxy start(String bootstrapServers) throws IOException {
+        final String broker = bootstrapServers.split(",")[0].trim();
+        final int separator = broker.lastIndexOf(':');
+        return new FaultInjectingProxy(new InetSocketAddress(broker.substring(0, separator), Integer.parseInt(broker.substring(separator + 1))));
+    }
+
+    private FaultInjectingProxy(InetSocketAddress upstream) throws IOException {
+        this.upstream = upstream;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("localhost", 0));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        thread = new Thread(this::run, "fault-injecting-proxy");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Proxy started on {} for broker {}", getBootstrapServers(), upstream);
+    }
+
+    /**
+     * The bootstrap servers for the clients to connect to the broker through the proxy.
+     */
+    public String getBootstrapServers() {
+        return "localhost:" + server.socket().getLocalPort();
+    }
+
+    /**
+     * Adds a latency of between the min and max milliseconds to the given percentage of produce requests.
+     */
+    public void simulateSlowBroker(int ratePercentage, int minLatencyMs, int maxLatencyMs) {
+        simulateSlowBroker(ratePercentage, () -> ThreadLocalRandom.current().nextLong(minLatencyMs, maxLatencyMs + 1L));
+    }
+
+    /**
+     * Adds a latency in milliseconds drawn from the given distribution to the given percentage of produce requests.
+     */
+    public void simulateSlowBroker(int ratePercentage, LongSupplier latencyMs) {
+        final Faults current = faults;
+        faults = new Faults(ratePercentage, latencyMs, current.errorRate(), current.error());
+    }
+
+    /**
+     * Answers the given percentage of produce requests with the error.
+     */
+    public void simulateBrokenBroker(int ratePercentage, Errors error) {
+        final Faults current = faults;
+        faults = new Faults(current.latencyRate(), current.latencyMs(), ratePercentage, error);
+    }
+
+    /**
+     * Answers the given percentage of produce requests as if the partition leader had moved, so the clients refresh
+     * their metadata and retry.
+     */
+    public void simulateLeaderElection(int ratePercentage) {
+        simulateBrokenBroker(ratePercentage, Errors.NOT_LEADER_OR_FOLLOWER);
+    }
+
+    /**
+     * Stops injecting faults, and resets the counts.
+     */
+    public void reset() {
+        faults = NO_FAULTS;
+        delayedRequests.set(0);
+        injectedErrors.set(0);
+    }
+
+    /**
+     * The number of produce requests delayed since the last reset.
+     */
+    public long getDelayedRequests() {
+        return delayedRequests.get();
+    }
+
+    /**
+     * The number of produce requests answered with an error since the last reset.
+     */
+    public long getInjectedErrors() {
+        return injectedErrors.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server.close();
+        selector.close();
+    }
+
+    private void run() {
+        while(running) {
+            try {
+                selector.select(nextReleaseMs());
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while(keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+                final long now = System.nanoTime();
+                for(Connection connection : connections) {
+                    connection.release(now);
+                }
+            } catch(IOException e) {
+                log.error("Proxy failed: {}", e.getMessage());
+            }
+        }
+        new ArrayList<>(connections).forEach(Connection::close);
+    }
+
+    private void handle(SelectionKey key) throws IOException {
+        if(!key.isValid()) {
+            return;
+        }
+        if(key.isAcceptable()) {
+            accept();
+            return;
+        }
+        final Connection connection = (Connection) key.attachment();
+        try {
+            if(key.isReadable()) {
+                connection.read(key);
+            }
+            if(key.isValid() && key.isWritable()) {
+                connection.write(key);
+            }
+        } catch(IOException e) {
+            log.debug("Proxy connection closed: {}", e.getMessage());
+            connection.close();
+        }
+    }
+
+    private void accept() throws IOException {
+        final SocketChannel client = server.accept();
+        if(client == null) {
+            return;
+        }
+        final SocketChannel broker;
+        try {
+            broker = SocketChannel.open(upstream);
+        } catch(IOException e) {
+            log.warn("Proxy failed to connect to broker {}: {}", upstream, e.getMessage());
+            client.close();
+            return;
+        }
+        connections.add(new Connection(client, broker));
+    }
+
+    /**
+     * The time in milliseconds to the next delayed response being due, or 0 to wait for the next event if none.
+     */
+    private long nextReleaseMs() {
+        long next = Long.MAX_VALUE;
+        for(Connection connection : connections) {
+            next = Math.min(next, connection.nextReleaseNanos());
+        }
+        if(next == Long.MAX_VALUE) {
+            return 0;
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(next - System.nanoTime()));
+    }
+
+    /**
+     * A response owed to the client, in the order of the requests on the connection, that is returned once it has been
+     * received and its delay has passed.
+     */
+    private static class Slot {
+        private final ApiKeys apiKey;
+        private final short apiVersion;
+        private final long releaseAtNanos;
+        private ByteBuffer response;
+
+        private Slot(ApiKeys apiKey, short apiVersion, long releaseAtNanos) {
+            this.apiKey = apiKey;
+            this.apiVersion = apiVersion;
+            this.releaseAtNanos = releaseAtNanos;
+        }
+    }
+
+    /**
+     * A client connection relayed to its own connection to the broker.
+     */
+    private class Connection {
+        private final SocketChannel client;
+        private final SocketChannel broker;
+        private final SelectionKey clientKey;
+        private final SelectionKey brokerKey;
+        private ByteBuffer clientIn = ByteBuffer.allocate(BUFFER_BYTES);
+        private ByteBuffer brokerIn = ByteBuffer.allocate(BUFFER_BYTES);
+        private final ArrayDeque<ByteBuffer> toClient = new ArrayDeque<>();
+        private final ArrayDeque<ByteBuffer> toBroker = new ArrayDeque<>();
+        private final ArrayDeque<Slot> slots = new ArrayDeque<>();
+        private final Map<Integer, Slot> awaiting = new HashMap<>();
+
+        private Connection(SocketChannel client, SocketChannel broker) throws IOException {
+            this.client = client;
+            this.broker = broker;
+            client.configureBlocking(false);
+            broker.configureBlocking(false);
+            clientKey = client.register(selector, SelectionKey.OP_READ, this);
+            brokerKey = broker.register(selector, SelectionKey.OP_READ, this);
+        }
+
+        private void read(SelectionKey key) throws IOException {
+            if(key == clientKey) {
+                clientIn = readFrames(client, clientIn, this::onRequest);
+            } else {
+                brokerIn = readFrames(broker, brokerIn, this::onResponse);
+            }
+        }
+
+        private void write(SelectionKey key) throws IOException {
+            final ArrayDeque<ByteBuffer> queue = key == clientKey ? toClient : toBroker;
+            final SocketChannel channel = (SocketChannel) key.channel();
+            while(!queue.isEmpty()) {
+                channel.write(queue.peek());
+                if(queue.peek().hasRemaining()) {
+                    return;
+                }
+                queue.poll();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        /**
+         * Relays the request to the broker, unless it is a produce request answered with an injected error.
+         */
+        private void onRequest(ByteBuffer frame) {
+            final ByteBuffer buffer = frame.duplicate().position(4);
+            final RequestHeader header = RequestHeader.parse(buffer);
+            final ApiKeys apiKey = header.apiKey();
+            final short apiVersion = header.apiVersion();
+            if(apiKey != ApiKeys.PRODUCE) {
+                expectResponse(header, System.nanoTime());
+                send(toBroker, brokerKey, frame);
+                return;
+            }
+            final ProduceRequest request = ProduceRequest.parse(buffer, apiVersion);
+            if(request.acks() == 0) {
+                // The broker does not respond, so neither is the request delayed.
+                send(toBroker, brokerKey, frame);
+                return;
+            }
+            final Faults current = faults;
+            long releaseAtNanos = System.nanoTime();
+            if(hit(current.latencyRate())) {
+                releaseAtNanos += TimeUnit.MILLISECONDS.toNanos(current.latencyMs().getAsLong());
+                delayedRequests.incrementAndGet();
+            }
+            if(hit(current.errorRate())) {
+                final Slot slot = new Slot(apiKey, apiVersion, releaseAtNanos);
+                slot.response = serialize(header.correlationId(), apiKey, apiVersion, request.getErrorResponse(0, current.error().exception()).data());
+                slots.add(slot);
+                injectedErrors.incrementAndGet();
+                return;
+            }
+            expectResponse(header, releaseAtNanos);
+            send(toBroker, brokerKey, frame);
+        }
+
+        private void expectResponse(RequestHeader header, long releaseAtNanos) {
+            final Slot slot = new Slot(header.apiKey(), header.apiVersion(), releaseAtNanos);
+            slots.add(slot);
+            awaiting.put(header.correlationId(), slot);
+        }
+
+        /**
+         * Fills the slot awaiting the response, rewriting the broker addresses in it to the proxy.
+         */
+        private void onResponse(ByteBuffer frame) {
+            final int correlationId = frame.getInt(4);
+            final Slot slot = awaiting.remove(correlationId);
+            if(slot == null) {
+                log.warn("Proxy received a response for unknown correlation id {}", correlationId);
+                return;
+            }
+            switch(slot.apiKey) {
+                case METADATA, FIND_COORDINATOR, DESCRIBE_CLUSTER -> slot.response = rewriteAddresses(correlationId, slot, frame);
+                default -> slot.response = frame;
+            }
+        }
+
+        /**
+         * Returns the responses at the head of the slots that have been received and are due.
+         */
+        private void release(long now) {
+            while(!slots.isEmpty() && slots.peek().response != null && slots.peek().releaseAtNanos <= now) {
+                send(toClient, clientKey, slots.poll().response);
+            }
+        }
+
+        private long nextReleaseNanos() {
+            final Slot head = slots.peek();
+            return head != null && head.response != null ? head.releaseAtNanos : Long.MAX_VALUE;
+        }
+
+        private void send(ArrayDeque<ByteBuffer> queue, SelectionKey key, ByteBuffer frame) {
+            queue.add(frame);
+            if(key.isValid()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+
+        private void close() {
+            connections.remove(this);
+            try {
+                client.close();
+                broker.close();
+            } catch(IOException e) {
+                log.debug("Proxy failed to close connection: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static boolean hit(int ratePercentage) {
+        return ratePercentage > 0 && ThreadLocalRandom.current().nextInt(100) < ratePercentage;
+    }
+
+    private interface FrameHandler {
+        void onFrame(ByteBuffer frame);
+    }
+
+    /**
+     * Reads from the channel into the buffer, passing each complete size prefixed frame to the handler.  Returns the
+     * buffer holding any partial frame, grown if the frame does not fit.
+     *
+     * Throws if the channel has been closed.
+     */
+    private static ByteBuffer readFrames(SocketChannel channel, ByteBuffer buffer, FrameHandler handler) throws IOException {
+        if(channel.read(buffer) < 0) {
+            throw new IOException("End of stream");
+        }
+        buffer.flip();
+        while(buffer.remaining() >= 4) {
+            final int size = buffer.getInt(buffer.position());
+            if(buffer.remaining() < 4 + size) {
+                break;
+            }
+            final ByteBuffer frame = ByteBuffer.allocate(4 + size);
+            final int limit = buffer.limit();
+            buffer.limit(buffer.position() + 4 + size);
+            frame.put(buffer).flip();
+            buffer.limit(limit);
+            handler.onFrame(frame);
+        }
+        buffer.compact();
+        if(buffer.position() >= 4) {
+            final int required = 4 + buffer.getInt(0);
+            if(required > buffer.capacity()) {
+                final ByteBuffer grown = ByteBuffer.allocate(required);
+                buffer.flip();
+                grown.put(buffer);
+                return grown;
+            }
+        }
+        return buffer;
+    }
+
+    private ByteBuffer rewriteAddresses(int correlationId, Slot slot, ByteBuffer frame) {
+        final ByteBuffer buffer = frame.duplicate().position(4);
+        ResponseHeader.parse(buffer, slot.apiKey.responseHeaderVersion(slot.apiVersion));
+        final ApiMessage data = AbstractResponse.parseResponse(slot.apiKey, buffer, slot.apiVersion).data();
+        final String host = "localhost";
+        final int port = server.socket().getLocalPort();
+        if(data instanceof MetadataResponseData metadata) {
+            metadata.brokers().forEach(broker -> broker.setHost(host).setPort(port));
+        } else if(data instanceof FindCoordinatorResponseData coordinator) {
+            if(coordinator.port() > 0) {
+                coordinator.setHost(host).setPort(port);
+            }
+            coordinator.coordinators().forEach(each -> each.setHost(host).setPort(port));
+        } else if(data instanceof DescribeClusterResponseData cluster) {
+            cluster.brokers().forEach(broker -> broker.setHost(host).setPort(port));
+        }
+        return serialize(correlationId, slot.apiKey, slot.apiVersion, data);
+    }
+
+    /**
+     * Serializes the response, size prefixed, as the broker would.
+     */
+    private static ByteBuffer serialize(int correlationId, ApiKeys apiKey, short apiVersion, ApiMessage data) {
+        final ResponseHeaderData header = new ResponseHeaderData().setCorrelationId(correlationId);
+        final short headerVersion = apiKey.responseHeaderVersion(apiVersion);
+        final ObjectSerializationCache cache = new ObjectSerializationCache();
+        final int size = header.size(cache, headerVersion) + data.size(cache, apiVersion);
+        final ByteBuffer buffer = ByteBuffer.allocate(4 + size);
+        buffer.putInt(size);
+        final ByteBufferAccessor accessor = new ByteBufferAccessor(buffer);
+        header.write(accessor, cache, headerVersion);
+        data.write(accessor, cache, apiVersion);
+        return buffer.flip();
+    }
+}
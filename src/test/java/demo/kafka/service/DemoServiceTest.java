@@ -1,27 +1,54 @@
 package demo.kafka.service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import demo.kafka.event.DemoOutboundEvent;
+import demo.kafka.job.Job;
+import demo.kafka.job.JobRegistry;
 import demo.kafka.producer.KafkaProducer;
+import demo.kafka.producer.SendPipeline;
+import demo.kafka.properties.KafkaDemoProperties;
+import demo.kafka.rest.api.KeyStrategy;
+import demo.kafka.rest.api.PayloadDistribution;
+import demo.kafka.rest.api.PayloadSize;
 import demo.kafka.rest.api.TriggerEventsRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.kafka.support.SendResult;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class DemoServiceTest {
 
+    private KafkaDemoProperties properties;
     private KafkaProducer mockKafkaClient;
+    private SendPipeline mockPipeline;
     private DemoService service;
+    private JobRegistry jobRegistry;
 
     @BeforeEach
     public void setUp() {
+        properties = new KafkaDemoProperties();
+        properties.getProducer().setEventBatchSize(1);
         mockKafkaClient = mock(KafkaProducer.class);
-        service = new DemoService(mockKafkaClient);
+        mockPipeline = mock(SendPipeline.class);
+        when(mockKafkaClient.pipeline(any())).thenReturn(mockPipeline);
+        service = new DemoService(properties, mockKafkaClient);
+        jobRegistry = new JobRegistry();
     }
 
     /**
@@ -29,13 +56,15 @@ public class DemoServiceTest {
      */
     @Test
     public void testTriggerSync_NumberOfEvents() throws Exception {
-        when(mockKafkaClient.sendMessage(any(DemoOutboundEvent.class))).thenReturn(mock(SendResult.class));
-
         TriggerEventsRequest testEvent = TriggerEventsRequest.builder()
                 .numberOfEvents(10)
                 .build();
-        service.triggerSync(testEvent);
-        verify(mockKafkaClient, times(testEvent.getNumberOfEvents().intValue())).sendMessage(any(DemoOutboundEvent.class));
+        Job job = jobRegistry.create(testEvent.getNumberOfEvents());
+        service.triggerSync(job, testEvent);
+        verify(mockKafkaClient, times(1)).pipeline(job);
+        verify(mockPipeline, times(testEvent.getNumberOfEvents().intValue())).sendBatch(anyList());
+        verify(mockPipeline, times(1)).awaitCompletion();
+        assertThat(job.getStatus(), equalTo(Job.Status.COMPLETED));
     }
 
     /**
@@ -43,12 +72,163 @@ public class DemoServiceTest {
      */
     @Test
     public void testTriggerAsync_NumberOfEvents() throws Exception {
-        when(mockKafkaClient.sendMessage(any(DemoOutboundEvent.class))).thenReturn(mock(SendResult.class));
+        TriggerEventsRequest testEvent = TriggerEventsRequest.builder()
+                .numberOfEvents(10)
+                .build();
+        service.triggerAsync(jobRegistry.create(testEvent.getNumberOfEvents()), testEvent);
+        verify(mockPipeline, times(testEvent.getNumberOfEvents().intValue())).sendBatch(anyList());
+        verify(mockPipeline, times(1)).awaitCompletion();
+    }
+
+    /**
+     * Ensure the events are paced to the target rate.
+     */
+    @Test
+    public void testTriggerSync_TargetRate() throws Exception {
+        TriggerEventsRequest testEvent = TriggerEventsRequest.builder()
+                .numberOfEvents(21)
+                .targetRate(100)
+                .build();
+        long startNanos = System.nanoTime();
+        service.triggerSync(jobRegistry.create(testEvent.getNumberOfEvents()), testEvent);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        verify(mockPipeline, times(testEvent.getNumberOfEvents().intValue())).sendBatch(isNull(), anyList(), any(long[].class));
+        // The first event is sent immediately, with the further 20 at 100 per second.
+        assertThat(elapsedMs, greaterThanOrEqualTo(190L));
+    }
+
+    /**
+     * Ensure each paced event is handed over with its intended send time by the schedule, so that its latency is
+     * measured from when it was due rather than when it was sent.
+     */
+    @Test
+    public void testTriggerSync_IntendedSendTimes() throws Exception {
+        properties.getProducer().setEventBatchSize(5);
+
+        TriggerEventsRequest testEvent = TriggerEventsRequest.builder()
+                .numberOfEvents(5)
+                .targetRate(1000)
+                .build();
+        List<Long> intendedNanos = new ArrayList<>();
+        doAnswer(invocation -> {
+            for(long nanos : (long[]) invocation.getArgument(2)) {
+                intendedNanos.add(nanos);
+            }
+            return null;
+        }).when(mockPipeline).sendBatch(isNull(), anyList(), any(long[].class));
+        long startNanos = System.nanoTime();
+        service.triggerSync(jobRegistry.create(testEvent.getNumberOfEvents()), testEvent);
+
+        // Each event is due a millisecond after the previous.
+        assertThat(intendedNanos.size(), equalTo(5));
+        for(int i = 1; i < 5; i++) {
+            assertThat(intendedNanos.get(i) - intendedNanos.get(i - 1), equalTo(TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+        assertThat(intendedNanos.get(0), greaterThanOrEqualTo(startNanos));
+    }
+
+    /**
+     * Ensure each event is sent with a key when the request has a key strategy.
+     */
+    @Test
+    public void testTriggerSync_Keyed() throws Exception {
+        properties.getProducer().setEventBatchSize(4);
 
         TriggerEventsRequest testEvent = TriggerEventsRequest.builder()
                 .numberOfEvents(10)
+                .keyStrategy(KeyStrategy.SEQUENCE)
+                .build();
+        List<String> keys = new ArrayList<>();
+        doAnswer(invocation -> keys.addAll(invocation.getArgument(0))).when(mockPipeline).sendBatch(anyList(), anyList());
+        service.triggerSync(jobRegistry.create(testEvent.getNumberOfEvents()), testEvent);
+        verify(mockPipeline, times(3)).sendBatch(anyList(), anyList());
+        verify(mockPipeline, never()).sendBatch(anyList());
+        assertThat(keys, equalTo(List.of("0", "1", "2", "3", "4", "5", "6", "7", "8", "9")));
+    }
+
+    /**
+     * Ensure each event carries a payload of the requested size.
+     */
+    @Test
+    public void testTriggerSync_PayloadSize() throws Exception {
+        TriggerEventsRequest testEvent = TriggerEventsRequest.builder()
+                .numberOfEvents(10)
+                .payloadSize(PayloadSize.builder().distribution(PayloadDistribution.FIXED).bytes(2048).build())
+                .build();
+        List<DemoOutboundEvent> events = new ArrayList<>();
+        doAnswer(invocation -> events.addAll(invocation.getArgument(0))).when(mockPipeline).sendBatch(anyList());
+        service.triggerSync(jobRegistry.create(testEvent.getNumberOfEvents()), testEvent);
+        assertThat(events.size(), equalTo(10));
+        events.forEach(event -> assertThat(event.getPayload().length(), equalTo(2048)));
+    }
+
+    /**
+     * Ensure that a send failure surfaced by the pipeline is percolated up.
+     */
+    @Test
+    public void testTriggerSync_SendFailure() throws Exception {
+        doThrow(new Exception("Send failure")).when(mockPipeline).awaitCompletion();
+
+        TriggerEventsRequest testEvent = TriggerEventsRequest.builder()
+                .numberOfEvents(10)
+                .build();
+        Job job = jobRegistry.create(testEvent.getNumberOfEvents());
+        Exception exception = assertThrows(Exception.class, () -> service.triggerSync(job, testEvent));
+        assertThat(exception.getMessage(), equalTo("Send failure"));
+        assertThat(job.getStatus(), equalTo(Job.Status.FAILED));
+        assertThat(job.toStatus().getError(), equalTo("Send failure"));
+    }
+
+    /**
+     * Ensure the events are handed to the producer in batches, with the producer flushed at each batch boundary.
+     */
+    @Test
+    public void testTriggerSync_FlushEachBatch() throws Exception {
+        properties.getProducer().setEventBatchSize(4);
+        properties.getProducer().setFlushPolicy(KafkaDemoProperties.FlushPolicy.BATCH);
+
+        TriggerEventsRequest testEvent = TriggerEventsRequest.builder()
+                .numberOfEvents(10)
+                .build();
+        service.triggerSync(jobRegistry.create(testEvent.getNumberOfEvents()), testEvent);
+        verify(mockPipeline, times(3)).sendBatch(anyList());
+        verify(mockPipeline, times(3)).flush();
+        verify(mockPipeline, times(1)).awaitCompletion();
+    }
+
+    /**
+     * Ensure the producer is not flushed when the flush policy leaves sending to the producer.
+     */
+    @Test
+    public void testTriggerSync_NoFlush() throws Exception {
+        properties.getProducer().setEventBatchSize(4);
+        properties.getProducer().setFlushPolicy(KafkaDemoProperties.FlushPolicy.NONE);
+
+        TriggerEventsRequest testEvent = TriggerEventsRequest.builder()
+                .numberOfEvents(10)
+                .build();
+        service.triggerSync(jobRegistry.create(testEvent.getNumberOfEvents()), testEvent);
+        verify(mockPipeline, times(3)).sendBatch(anyList());
+        verify(mockPipeline, never()).flush();
+    }
+
+    /**
+     * Ensure a partly filled batch of paced events is handed over once the linger passes, without awaiting the next
+     * event.
+     */
+    @Test
+    public void testTriggerSync_LingerWhilePaced() throws Exception {
+        properties.getProducer().setEventBatchSize(100);
+        properties.getProducer().setEventBatchLingerMs(50);
+
+        TriggerEventsRequest testEvent = TriggerEventsRequest.builder()
+                .numberOfEvents(3)
+                .targetRate(5)
                 .build();
-        service.triggerAsync(testEvent);
-        verify(mockKafkaClient, times(testEvent.getNumberOfEvents().intValue())).sendMessage(any(DemoOutboundEvent.class));
+        List<Integer> batchSizes = new ArrayList<>();
+        doAnswer(invocation -> batchSizes.add(((List<?>) invocation.getArgument(1)).size())).when(mockPipeline).sendBatch(isNull(), anyList(), any(long[].class));
+        service.triggerSync(jobRegistry.create(testEvent.getNumberOfEvents()), testEvent);
+        // Each event is 200ms apart, so each batch lingers past 50ms awaiting the next event.
+        assertThat(batchSizes, equalTo(List.of(1, 1, 1)));
     }
 }
@@ -0,0 +1,51 @@
+package demo.kafka.service;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import demo.kafka.event.DemoOutboundEvent;
+import demo.kafka.rest.api.KeyStrategy;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class KeyGeneratorTest {
+
+    private static final DemoOutboundEvent EVENT = DemoOutboundEvent.builder().name("abcdefgh").build();
+
+    /**
+     * Ensure no key generator is used when the request has no key strategy.
+     */
+    @Test
+    public void testOf_None() {
+        assertThat(KeyGenerator.of(null, null), nullValue());
+        assertThat(KeyGenerator.of(KeyStrategy.NONE, null), nullValue());
+    }
+
+    /**
+     * Ensure the keys follow the sequence, and that the name hash is the same for the same name.
+     */
+    @Test
+    public void testKeyFor_SequenceAndNameHash() {
+        KeyGenerator sequence = KeyGenerator.of(KeyStrategy.SEQUENCE, null);
+        assertThat(sequence.keyFor(42, EVENT), equalTo("42"));
+
+        KeyGenerator nameHash = KeyGenerator.of(KeyStrategy.NAME_HASH, null);
+        assertThat(nameHash.keyFor(1, EVENT), equalTo(nameHash.keyFor(2, DemoOutboundEvent.builder().name("abcdefgh").build())));
+    }
+
+    /**
+     * Ensure the fixed key strategy only uses the requested number of keys.
+     */
+    @Test
+    public void testKeyFor_Fixed() {
+        KeyGenerator fixed = KeyGenerator.of(KeyStrategy.FIXED, 3);
+        Set<String> keys = new HashSet<>();
+        for(int i = 0; i < 1000; i++) {
+            keys.add(fixed.keyFor(i, EVENT));
+        }
+        assertThat(keys, equalTo(Set.of("key-0", "key-1", "key-2")));
+    }
+}
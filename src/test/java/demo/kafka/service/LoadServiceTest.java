@@ -0,0 +1,200 @@
+package demo.kafka.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import demo.kafka.event.DemoOutboundEvent;
+import demo.kafka.job.Job;
+import demo.kafka.job.JobRegistry;
+import demo.kafka.producer.KafkaProducer;
+import demo.kafka.producer.SendListener;
+import demo.kafka.producer.SendPipeline;
+import demo.kafka.properties.KafkaDemoProperties;
+import demo.kafka.rest.api.LoadReport;
+import demo.kafka.rest.api.LoadScenarioRequest;
+import demo.kafka.rest.api.PayloadDistribution;
+import demo.kafka.rest.api.PayloadSize;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LoadServiceTest {
+
+    private KafkaDemoProperties properties;
+    private KafkaProducer mockKafkaClient;
+    private SendPipeline mockPipeline;
+    private LoadService service;
+    private JobRegistry jobRegistry;
+    private Set<Long> sequences;
+    private volatile SendListener listener;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        properties = new KafkaDemoProperties();
+        mockKafkaClient = mock(KafkaProducer.class);
+        mockPipeline = mock(SendPipeline.class);
+        sequences = ConcurrentHashMap.newKeySet();
+        when(mockKafkaClient.pipeline(any())).thenAnswer(invocation -> {
+            listener = invocation.getArgument(0);
+            return mockPipeline;
+        });
+        doAnswer(invocation -> {
+            List<DemoOutboundEvent> batch = invocation.getArgument(0);
+            for(DemoOutboundEvent event : batch) {
+                sequences.add(event.getSequence());
+                listener.onLatency(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            return null;
+        }).when(mockPipeline).sendBatch(anyList());
+        service = new LoadService(properties, new DemoService(properties, mockKafkaClient));
+        jobRegistry = new JobRegistry();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.destroy();
+    }
+
+    /**
+     * Ensure the events are shared across the workers, each with a sequence number unique within the job, with the
+     * latency of every send recorded.
+     */
+    @Test
+    public void testRun_Concurrency() throws Exception {
+        LoadScenarioRequest scenario = LoadScenarioRequest.builder()
+                .numberOfEvents(103)
+                .concurrency(4)
+                .build();
+        Job job = jobRegistry.create(scenario.getNumberOfEvents());
+
+        LoadReport report = service.run(job, scenario);
+
+        verify(mockKafkaClient, times(4)).pipeline(job);
+        verify(mockPipeline, times(4)).awaitCompletion();
+        assertThat(sequences.size(), equalTo(103));
+        assertThat(sequences, everyItem(allOf(greaterThanOrEqualTo(0L), lessThan(103L))));
+        assertThat(report.getStatus(), equalTo(Job.Status.COMPLETED.name()));
+        assertThat(report.getConcurrency(), equalTo(4));
+        assertThat(report.getLatency().getCount(), equalTo(103L));
+    }
+
+    /**
+     * Ensure each worker hands its events to the producer in batches of the event batch size, flushed as the flush
+     * policy requires, as for a trigger request.
+     */
+    @Test
+    public void testRun_Batched() throws Exception {
+        properties.getProducer().setEventBatchSize(4);
+        properties.getProducer().setEventBatchLingerMs(0);
+        properties.getProducer().setFlushPolicy(KafkaDemoProperties.FlushPolicy.BATCH);
+        LoadScenarioRequest scenario = LoadScenarioRequest.builder()
+                .numberOfEvents(20)
+                .concurrency(2)
+                .build();
+
+        LoadReport report = service.run(jobRegistry.create(scenario.getNumberOfEvents()), scenario);
+
+        // Each worker sends its 10 events in batches of 4, 4 and 2.
+        verify(mockPipeline, times(6)).sendBatch(anyList());
+        verify(mockPipeline, times(6)).flush();
+        verify(mockPipeline, never()).send(any(), any());
+        assertThat(sequences.size(), equalTo(20));
+        assertThat(report.getStatus(), equalTo(Job.Status.COMPLETED.name()));
+    }
+
+    /**
+     * Ensure each event carries a payload of the requested size.
+     */
+    @Test
+    public void testRun_PayloadSize() throws Exception {
+        LoadScenarioRequest scenario = LoadScenarioRequest.builder()
+                .numberOfEvents(10)
+                .payloadSize(PayloadSize.builder().distribution(PayloadDistribution.FIXED).bytes(1024).build())
+                .build();
+
+        LoadReport report = service.run(jobRegistry.create(scenario.getNumberOfEvents()), scenario);
+
+        assertThat(report.getPayloadBytes(), equalTo(10 * 1024L));
+    }
+
+    /**
+     * Ensure a failed worker fails the job, with the report carrying the failure.
+     */
+    @Test
+    public void testRun_Failed() throws Exception {
+        doThrow(new Exception("Send failed")).when(mockPipeline).awaitCompletion();
+        LoadScenarioRequest scenario = LoadScenarioRequest.builder()
+                .numberOfEvents(10)
+                .concurrency(2)
+                .build();
+        Job job = jobRegistry.create(scenario.getNumberOfEvents());
+
+        LoadReport report = service.run(job, scenario);
+
+        assertThat(job.getStatus(), equalTo(Job.Status.FAILED));
+        assertThat(report.getError(), equalTo("Send failed"));
+    }
+
+    /**
+     * Ensure a scenario is rejected without being run while the shared workers are all in use, and is run once they
+     * are free again.
+     */
+    @Test
+    public void testRun_RejectedWhenWorkersInUse() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(10, TimeUnit.SECONDS)).when(mockPipeline).awaitCompletion();
+        LoadScenarioRequest busy = LoadScenarioRequest.builder()
+                .numberOfEvents(LoadService.MAX_WORKERS)
+                .concurrency(LoadService.MAX_WORKERS)
+                .build();
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<LoadReport> busyReport = caller.submit(() -> service.run(jobRegistry.create(busy.getNumberOfEvents()), busy));
+            Awaitility.await().atMost(10, TimeUnit.SECONDS).until(() -> sequences.size() == LoadService.MAX_WORKERS);
+
+            LoadScenarioRequest scenario = LoadScenarioRequest.builder().numberOfEvents(10).build();
+            assertThrows(TaskRejectedException.class, () -> service.run(jobRegistry.create(scenario.getNumberOfEvents()), scenario));
+
+            release.countDown();
+            assertThat(busyReport.get(10, TimeUnit.SECONDS).getStatus(), equalTo(Job.Status.COMPLETED.name()));
+            assertThat(service.run(jobRegistry.create(scenario.getNumberOfEvents()), scenario).getStatus(), equalTo(Job.Status.COMPLETED.name()));
+        } finally {
+            caller.shutdownNow();
+        }
+    }
+
+    /**
+     * Ensure the remainder of the events is spread across the first workers.
+     */
+    @Test
+    public void testShare() {
+        assertThat(LoadService.share(10, 3, 0), equalTo(4));
+        assertThat(LoadService.share(10, 3, 1), equalTo(3));
+        assertThat(LoadService.share(10, 3, 2), equalTo(3));
+    }
+}
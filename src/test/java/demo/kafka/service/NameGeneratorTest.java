@@ -0,0 +1,42 @@
+package demo.kafka.service;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.matchesPattern;
+
+public class NameGeneratorTest {
+
+    /**
+     * Ensure each name is a capitalised letter followed by seven lower case letters.
+     */
+    @Test
+    public void testRandomName_Format() {
+        for(int i = 0; i < 10000; i++) {
+            assertThat(NameGenerator.randomName(), matchesPattern("[A-Z][a-z]{7}"));
+        }
+    }
+
+    /**
+     * Ensure the names are random, with every letter used in each position.
+     */
+    @Test
+    public void testRandomName_Random() {
+        Set<String> names = new HashSet<>();
+        Set<Character> firstLetters = new HashSet<>();
+        Set<Character> lastLetters = new HashSet<>();
+        for(int i = 0; i < 10000; i++) {
+            String name = NameGenerator.randomName();
+            names.add(name);
+            firstLetters.add(name.charAt(0));
+            lastLetters.add(name.charAt(NameGenerator.NAME_LENGTH - 1));
+        }
+        assertThat(names.size(), greaterThan(9990));
+        assertThat(firstLetters.size(), greaterThan(25));
+        assertThat(lastLetters.size(), greaterThan(25));
+    }
+}
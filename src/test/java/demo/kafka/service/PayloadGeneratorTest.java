@@ -0,0 +1,109 @@
+package demo.kafka.service;
+
+import java.util.UUID;
+
+import demo.kafka.event.DemoOutboundEvent;
+import demo.kafka.rest.api.PayloadDistribution;
+import demo.kafka.rest.api.PayloadSize;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.AbstractRecords;
+import org.apache.kafka.common.record.CompressionType;
+import org.apache.kafka.common.record.RecordBatch;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PayloadGeneratorTest {
+
+    /**
+     * Ensure no generator is created when the events carry no payload.
+     */
+    @Test
+    public void testOf_None() {
+        assertThat(PayloadGenerator.of(null), nullValue());
+    }
+
+    /**
+     * Ensure every payload has the fixed size, taken from the pool of alphanumeric characters.
+     */
+    @Test
+    public void testFixed() {
+        PayloadGenerator generator = PayloadGenerator.of(PayloadSize.builder().distribution(PayloadDistribution.FIXED).bytes(1024).build());
+        for(int i = 0; i < 100; i++) {
+            String payload = generator.next();
+            assertThat(payload.length(), equalTo(1024));
+            assertThat(payload.matches("[0-9A-Za-z]*"), equalTo(true));
+        }
+        assertThat(generator.next(), not(equalTo(generator.next())));
+    }
+
+    /**
+     * Ensure the largest payload can be taken from the pool.
+     */
+    @Test
+    public void testFixed_Max() {
+        PayloadGenerator generator = PayloadGenerator.of(PayloadSize.builder().distribution(PayloadDistribution.FIXED).bytes(PayloadSize.MAX_BYTES).build());
+        assertThat(generator.next().length(), equalTo(PayloadSize.MAX_BYTES));
+        assertThat(PayloadPool.size(), greaterThanOrEqualTo(2 * PayloadSize.MAX_BYTES));
+    }
+
+    /**
+     * Ensure an event carrying the largest payload, serialized with its type headers, fits within the producer's
+     * default max.request.size.
+     */
+    @Test
+    public void testFixed_MaxFitsRequest() {
+        DemoOutboundEvent event = DemoOutboundEvent.builder()
+                .name(NameGenerator.randomName())
+                .jobId(UUID.randomUUID().toString())
+                .sequence(Long.MAX_VALUE)
+                .payload(PayloadPool.take(PayloadSize.MAX_BYTES))
+                .build();
+        RecordHeaders headers = new RecordHeaders();
+        try(JsonSerializer<Object> serializer = new JsonSerializer<>()) {
+            byte[] value = serializer.serialize("demo-outbound-topic", headers, event);
+            int size = AbstractRecords.estimateSizeInBytesUpperBound(RecordBatch.CURRENT_MAGIC_VALUE, CompressionType.NONE,
+                    UUID.randomUUID().toString().getBytes(), value, headers.toArray());
+            assertThat(size, lessThan((int) ProducerConfig.configDef().defaultValues().get(ProducerConfig.MAX_REQUEST_SIZE_CONFIG)));
+        }
+    }
+
+    /**
+     * Ensure the uniform sizes fall between the minimum and maximum bytes.
+     */
+    @Test
+    public void testUniform() {
+        PayloadGenerator generator = PayloadGenerator.of(PayloadSize.builder().distribution(PayloadDistribution.UNIFORM).minBytes(10).maxBytes(20).build());
+        for(int i = 0; i < 1000; i++) {
+            assertThat(generator.nextSize(), allOf(greaterThanOrEqualTo(10), lessThanOrEqualTo(20)));
+        }
+    }
+
+    /**
+     * Ensure the log uniform sizes fall between the minimum and maximum bytes, spread across the orders of magnitude
+     * so that as many fall in each tenfold range.
+     */
+    @Test
+    public void testLogUniform() {
+        PayloadGenerator generator = PayloadGenerator.of(PayloadSize.builder().distribution(PayloadDistribution.LOG_UNIFORM).minBytes(10).maxBytes(9999).build());
+        int[] decades = new int[3];
+        for(int i = 0; i < 3000; i++) {
+            int size = generator.nextSize();
+            assertThat(size, allOf(greaterThanOrEqualTo(10), lessThanOrEqualTo(9999)));
+            decades[(int) Math.log10(size) - 1]++;
+        }
+        for(int decade : decades) {
+            assertThat(decade, greaterThan(800));
+        }
+    }
+}
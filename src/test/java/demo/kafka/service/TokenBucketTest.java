@@ -0,0 +1,149 @@
+package demo.kafka.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class TokenBucketTest {
+
+    private AtomicLong clock;
+
+    @BeforeEach
+    public void setUp() {
+        clock = new AtomicLong(TimeUnit.SECONDS.toNanos(1000));
+    }
+
+    /**
+     * Ensure tokens are taken at the target rate, with the caller told to wait when none are available.
+     */
+    @Test
+    public void testTryAcquire_TargetRate() {
+        TokenBucket bucket = new TokenBucket(10, 0, clock::get);
+
+        assertThat(bucket.tryAcquire(), equalTo(0L));
+        assertThat(bucket.tryAcquire(), greaterThan(0L));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(bucket.tryAcquire(), equalTo(0L));
+        assertThat(bucket.tryAcquire(), greaterThan(0L));
+    }
+
+    /**
+     * Ensure acquiring by a deadline gives up once the deadline has passed without a token, and takes one once
+     * available.
+     */
+    @Test
+    public void testAcquire_Deadline() throws Exception {
+        TokenBucket bucket = new TokenBucket(10, 0, clock::get);
+
+        assertThat(bucket.acquire(clock.get()), equalTo(true));
+        assertThat(bucket.acquire(clock.get()), equalTo(false));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(bucket.acquire(clock.get()), equalTo(true));
+    }
+
+    /**
+     * Ensure each token taken is scheduled at its intended time by the rate, however late it is taken.
+     */
+    @Test
+    public void testScheduledNanos() {
+        TokenBucket bucket = new TokenBucket(100, 0, clock::get);
+        long startNanos = clock.get();
+
+        bucket.tryAcquire();
+        assertThat(bucket.scheduledNanos(), equalTo(startNanos));
+
+        // Taken 500ms late, after a pause, yet due 10ms after the start.
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(510));
+        bucket.tryAcquire();
+        assertThat(bucket.scheduledNanos(), equalTo(startNanos + TimeUnit.MILLISECONDS.toNanos(10)));
+    }
+
+    /**
+     * Ensure the schedule follows the ramp, with the events accrued over the ramp at half the target rate.
+     */
+    @Test
+    public void testScheduledNanos_Ramp() {
+        TokenBucket bucket = new TokenBucket(100, 10, clock::get);
+        long startNanos = clock.get();
+
+        assertThat(bucket.scheduledNanos(0), equalTo(startNanos));
+        // 5 events accrue over the first second of the ramp, and 500 over its 10 seconds, then 100 a second.
+        assertThat(bucket.scheduledNanos(5) - startNanos, equalTo(TimeUnit.SECONDS.toNanos(1)));
+        assertThat(bucket.scheduledNanos(500) - startNanos, equalTo(TimeUnit.SECONDS.toNanos(10)));
+        assertThat(bucket.scheduledNanos(600) - startNanos, equalTo(TimeUnit.SECONDS.toNanos(11)));
+    }
+
+    /**
+     * Ensure a sender fallen behind the schedule takes the tokens already due back to back until it has caught up,
+     * then is paced at the rate again.
+     */
+    @Test
+    public void testTryAcquire_CatchUp() {
+        TokenBucket bucket = new TokenBucket(1000, 0, clock::get);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        int acquired = 0;
+        while(bucket.tryAcquire() == 0) {
+            acquired++;
+        }
+        // The token at the start, and one each millisecond over the second.
+        assertThat(acquired, equalTo(1001));
+        assertThat(bucket.tryAcquire(), equalTo(TimeUnit.MILLISECONDS.toNanos(1)));
+    }
+
+    /**
+     * Ensure that after a stall mid-run the latencies measured from the schedule recover once the sender has caught up,
+     * rather than carrying the stall for the rest of the run.
+     */
+    @Test
+    public void testScheduledNanos_RecoversAfterStall() {
+        TokenBucket bucket = new TokenBucket(1000, 0, clock::get);
+        List<Long> latencies = new ArrayList<>();
+
+        for(int i = 0; i < 3000; i++) {
+            long waitNanos;
+            while((waitNanos = bucket.tryAcquire()) > 0) {
+                clock.addAndGet(waitNanos);
+            }
+            latencies.add(clock.get() - bucket.scheduledNanos());
+            // Each send takes 100us, but the send after a second stalls for 500ms, such as on a full send window.
+            clock.addAndGet(TimeUnit.MICROSECONDS.toNanos(i == 1000 ? 500_000 : 100));
+        }
+
+        assertThat(latencies.get(1001), greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(499)));
+        // Sending an event each 100us while behind, the sender makes up the 500 events due over the stall within 600
+        // events, after which it keeps to the schedule.
+        assertThat(latencies.subList(1600, latencies.size()), everyItem(lessThan(TimeUnit.MILLISECONDS.toNanos(1))));
+    }
+
+    /**
+     * Ensure the tokens accrue along the ramp, at half the target rate on average over it.
+     */
+    @Test
+    public void testRamp() {
+        TokenBucket bucket = new TokenBucket(100, 10, clock::get);
+
+        // Stepping through just over the first second accrues 100 * 1 / 10 / 2 = 5 events, plus the first at the start.
+        int acquired = 0;
+        for(int i = 0; i < 1010; i++) {
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+            while(bucket.tryAcquire() == 0) {
+                acquired++;
+            }
+        }
+        assertThat(acquired, equalTo(6));
+    }
+}
@@ -0,0 +1,98 @@
+package demo.kafka.spill;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import demo.kafka.producer.KafkaProducer;
+import demo.kafka.properties.KafkaDemoProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.InvalidRequiredAcksException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.kafka.support.SendResult;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SpillDrainerTest {
+
+    @TempDir
+    Path directory;
+
+    private SpillLog spillLog;
+    private KafkaProducer kafkaProducerMock;
+    private SpillDrainer drainer;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        spillLog = new SpillLog(directory, 4096, 4096 * 4L, new SimpleMeterRegistry());
+        kafkaProducerMock = mock(KafkaProducer.class);
+        KafkaDemoProperties properties = new KafkaDemoProperties();
+        // Drain only when called by the test.
+        properties.getSpill().setDrainIntervalMs(Integer.MAX_VALUE);
+        properties.getSpill().setDrainBatchSize(2);
+        drainer = new SpillDrainer(spillLog, kafkaProducerMock, properties);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        drainer.destroy();
+        spillLog.destroy();
+    }
+
+    /**
+     * Ensure every spilled record is replayed in batches, emptying the log.
+     */
+    @Test
+    public void testDrain() throws Exception {
+        for(int i = 0; i < 5; i++) {
+            spillLog.append("key-" + i, "data-" + i);
+        }
+        when(kafkaProducerMock.replay(any(), any())).thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        assertThat(drainer.drain(), equalTo(5));
+        assertThat(spillLog.isEmpty(), equalTo(true));
+        verify(kafkaProducerMock, times(1)).replay("key-0", "data-0");
+        verify(kafkaProducerMock, times(1)).replay("key-4", "data-4");
+    }
+
+    /**
+     * Ensure the drain pauses while the broker is unavailable, leaving the batch in the log to be replayed again.
+     */
+    @Test
+    public void testDrain_BrokerUnavailable() throws Exception {
+        spillLog.append("key-0", "data-0");
+        when(kafkaProducerMock.replay(any(), any())).thenReturn(CompletableFuture.failedFuture(
+                new KafkaProducerException(mock(ProducerRecord.class), "Send failed", new TimeoutException("Expiring 1 record(s)"))));
+
+        assertThat(drainer.drain(), equalTo(0));
+        assertThat(spillLog.isEmpty(), equalTo(false));
+
+        when(kafkaProducerMock.replay(any(), any())).thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        assertThat(drainer.drain(), equalTo(1));
+        assertThat(spillLog.isEmpty(), equalTo(true));
+    }
+
+    /**
+     * Ensure a record failing with a non-retriable error is dropped rather than blocking the drain.
+     */
+    @Test
+    public void testDrain_NonRetriable() throws Exception {
+        spillLog.append("key-0", "data-0");
+        when(kafkaProducerMock.replay(any(), any())).thenReturn(CompletableFuture.failedFuture(
+                new KafkaProducerException(mock(ProducerRecord.class), "Send failed", new InvalidRequiredAcksException("invalid acks"))));
+
+        assertThat(drainer.drain(), equalTo(1));
+        assertThat(spillLog.isEmpty(), equalTo(true));
+    }
+}
@@ -0,0 +1,147 @@
+package demo.kafka.spill;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import demo.kafka.event.DemoOutboundEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+
+public class SpillLogTest {
+
+    private static final int SEGMENT_BYTES = 1024;
+
+    @TempDir
+    Path directory;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    /**
+     * Ensure the spilled records are read back in order with their keys and payloads, and removed once committed.
+     */
+    @Test
+    public void testAppendPeekCommit() throws Exception {
+        SpillLog spillLog = new SpillLog(directory, SEGMENT_BYTES, SEGMENT_BYTES * 4L, meterRegistry);
+        assertThat(spillLog.append("key-1", event(0)), equalTo(true));
+        assertThat(spillLog.append(null, event(1)), equalTo(true));
+        assertThat(spillLog.getBytes(), greaterThan(0L));
+
+        SpillLog.SpillBatch batch = spillLog.peek(10);
+        assertThat(batch.records().size(), equalTo(2));
+        assertThat(batch.records().get(0).key(), equalTo("key-1"));
+        assertThat(batch.records().get(0).payload(), equalTo(event(0)));
+        assertThat(batch.records().get(1).key(), nullValue());
+        assertThat(batch.records().get(1).payload(), equalTo(event(1)));
+
+        spillLog.commit(batch);
+        assertThat(spillLog.isEmpty(), equalTo(true));
+        assertThat(spillLog.peek(10).isEmpty(), equalTo(true));
+        assertThat(meterRegistry.get(SpillLog.RECORDS).tag("outcome", "replayed").counter().count(), equalTo(2.0));
+        spillLog.destroy();
+    }
+
+    /**
+     * Ensure the log rolls on to further segments, rejecting records once the maximum bytes are in use.
+     */
+    @Test
+    public void testAppend_Full() throws Exception {
+        SpillLog spillLog = new SpillLog(directory, SEGMENT_BYTES, SEGMENT_BYTES * 2L, meterRegistry);
+        int appended = 0;
+        while(spillLog.append("key", event(appended))) {
+            appended++;
+        }
+        assertThat(segmentFiles(), equalTo(2L));
+        assertThat(meterRegistry.get(SpillLog.RECORDS).tag("outcome", "spilled").counter().count(), equalTo((double) appended));
+        assertThat(meterRegistry.get(SpillLog.RECORDS).tag("outcome", "rejected").counter().count(), equalTo(1.0));
+
+        // Replaying the first segment deletes it, making room for a further segment.
+        spillLog.commit(spillLog.peek(appended));
+        assertThat(segmentFiles(), equalTo(1L));
+        assertThat(spillLog.append("key", event(appended)), equalTo(true));
+        spillLog.destroy();
+    }
+
+    /**
+     * Ensure the records awaiting replay are recovered when the log is reopened, without those already replayed.
+     */
+    @Test
+    public void testRecover() throws Exception {
+        SpillLog spillLog = new SpillLog(directory, SEGMENT_BYTES, SEGMENT_BYTES * 4L, meterRegistry);
+        for(int i = 0; i < 3; i++) {
+            spillLog.append("key-" + i, event(i));
+        }
+        spillLog.commit(spillLog.peek(1));
+        spillLog.destroy();
+
+        SpillLog recovered = new SpillLog(directory, SEGMENT_BYTES, SEGMENT_BYTES * 4L, new SimpleMeterRegistry());
+        SpillLog.SpillBatch batch = recovered.peek(10);
+        assertThat(batch.records().size(), equalTo(2));
+        assertThat(batch.records().get(0).payload(), equalTo(event(1)));
+        assertThat(batch.records().get(1).payload(), equalTo(event(2)));
+        recovered.destroy();
+    }
+
+    /**
+     * Ensure a record that cannot be decoded is skipped and counted, with the records behind it replayed and the log
+     * committed past it, rather than the log being stuck behind it.
+     */
+    @Test
+    public void testPeek_Undecodable() throws Exception {
+        SpillLog spillLog = new SpillLog(directory, SEGMENT_BYTES, SEGMENT_BYTES * 4L, meterRegistry);
+        spillLog.append("key-0", event(0));
+        spillLog.append("key-1", new Undecodable("value"));
+        spillLog.append("key-2", event(2));
+
+        SpillLog.SpillBatch batch = spillLog.peek(10);
+        assertThat(batch.records().size(), equalTo(2));
+        assertThat(batch.records().get(0).payload(), equalTo(event(0)));
+        assertThat(batch.records().get(1).payload(), equalTo(event(2)));
+        assertThat(batch.skipped(), equalTo(1));
+
+        spillLog.commit(batch);
+        assertThat(spillLog.isEmpty(), equalTo(true));
+        assertThat(meterRegistry.get(SpillLog.RECORDS).tag("outcome", "replayed").counter().count(), equalTo(2.0));
+        assertThat(meterRegistry.get(SpillLog.RECORDS).tag("outcome", "undecodable").counter().count(), equalTo(1.0));
+        spillLog.destroy();
+    }
+
+    private long segmentFiles() throws Exception {
+        try(Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static DemoOutboundEvent event(long sequence) {
+        return DemoOutboundEvent.builder().name("event").jobId("job-1").sequence(sequence).build();
+    }
+
+    /**
+     * A payload that is serialized by its getter, but cannot be deserialized as it has no default constructor.
+     */
+    public static class Undecodable {
+
+        private final String value;
+
+        public Undecodable(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+}